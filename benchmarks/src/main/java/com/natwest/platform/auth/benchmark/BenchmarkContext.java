@@ -0,0 +1,44 @@
+package com.natwest.platform.auth.benchmark;
+
+import com.natwest.platform.auth.AuthServerDemoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Boots the application without a web server against a private in-memory H2 database
+ * (unless the caller supplies its own spring.datasource.url)
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {}
+
+    static ConfigurableApplicationContext start(String... properties) {
+        String[] defaults = {
+            "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_ON_EXIT=FALSE",
+            "spring.jpa.show-sql=false",
+            "logging.level.root=WARN",
+            "logging.level.com.natwest.platform.auth=WARN"
+        };
+        // Caller properties replace defaults with the same key (repeated arguments would be joined)
+        Map<String, String> merged = new LinkedHashMap<>();
+        for (String property : defaults) {
+            merged.put(property.substring(0, property.indexOf('=')), property);
+        }
+        for (String property : properties) {
+            merged.put(property.substring(0, property.indexOf('=')), property);
+        }
+        // Passed as command-line arguments so they take precedence over application.yml
+        String[] args = merged.values().stream()
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(AuthServerDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(args);
+    }
+}
@@ -0,0 +1,41 @@
+package com.natwest.platform.auth.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the benchmarks once per thread count with the GC profiler,
+ * writing one JSON result file per thread count for diffing between releases.
+ *
+ * Arguments: include regex, comma-separated thread counts, output directory.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 && !args[0].isEmpty() ? args[0] : ".*";
+        String threadCounts = args.length > 1 && !args[1].isEmpty() ? args[1] : "1,4,16";
+        File outputDir = new File(args.length > 2 ? args[2] : "target/jmh");
+        outputDir.mkdirs();
+
+        for (String count : threadCounts.split(",")) {
+            int threads = Integer.parseInt(count.trim());
+            File result = new File(outputDir, "results-t" + threads + ".json");
+            Options options = new OptionsBuilder()
+                    .include(BenchmarkRunner.class.getPackage().getName() + "\\..*" + include)
+                    .exclude(BenchmarkRunner.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(result.getPath())
+                    .build();
+            new Runner(options).run();
+            System.out.println("Results for " + threads + " thread(s) written to " + result.getPath());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.natwest.platform.auth.benchmark;
+
+import com.natwest.platform.auth.service.JwtService;
+import com.natwest.platform.auth.service.OAuth2Service;
+import com.natwest.platform.auth.service.TokenIntrospection;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OAuth2Service.introspectToken with and without the verified-result cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntrospectionBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+
+    private OAuth2Service oauth2Service;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("natwest.auth.introspection-cache.enabled=" + cacheEnabled);
+        oauth2Service = context.getBean(OAuth2Service.class);
+        token = context.getBean(JwtService.class)
+                .generateToken("retail-payment-service", "retail-banking", "read:accounts,write:transactions");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TokenIntrospection introspectToken() {
+        return oauth2Service.introspectToken(token);
+    }
+}
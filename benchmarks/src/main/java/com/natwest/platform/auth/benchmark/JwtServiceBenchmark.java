@@ -0,0 +1,53 @@
+package com.natwest.platform.auth.benchmark;
+
+import com.natwest.platform.auth.service.JwtService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verification cost of JwtService per algorithm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    @Param({"HS256", "RS256", "ES256"})
+    public String algorithm;
+
+    private ConfigurableApplicationContext context;
+
+    private JwtService jwtService;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // One process, so a generated key pair is enough for RS256 / ES256
+        context = BenchmarkContext.start("natwest.auth.jwt.algorithm=" + algorithm,
+                "natwest.auth.jwt.ephemeral-key=true");
+        jwtService = context.getBean(JwtService.class);
+        token = jwtService.generateToken("retail-payment-service", "retail-banking", "read:accounts,write:transactions");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("retail-payment-service", "retail-banking", "read:accounts,write:transactions");
+    }
+
+    @Benchmark
+    public Claims extractClaims() {
+        return jwtService.extractClaims(token);
+    }
+}
@@ -0,0 +1,59 @@
+package com.natwest.platform.auth.benchmark;
+
+import com.natwest.platform.auth.service.ScopeRegistry;
+import com.natwest.platform.auth.service.ScopeSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scope filtering as done by OAuth2Service.validateAndFilterScopes, for realistic list sizes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScopeFilterBenchmark {
+
+    /**
+     * Scopes allowed for the client; a quarter of them (plus one unknown) are requested
+     */
+    @Param({"2", "16", "64"})
+    public int allowedScopeCount;
+
+    private ScopeRegistry scopeRegistry;
+
+    private ScopeSet allowed;
+
+    private String allowedScopes;
+
+    private String requestedScopes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scopeRegistry = new ScopeRegistry();
+        StringBuilder allowedBuilder = new StringBuilder();
+        StringBuilder requestedBuilder = new StringBuilder();
+        for (int i = 0; i < allowedScopeCount; i++) {
+            String scope = (i % 2 == 0 ? "read:" : "write:") + "resource-" + i;
+            if (allowedBuilder.length() > 0) {
+                allowedBuilder.append(',');
+            }
+            allowedBuilder.append(scope);
+            if (i % 4 == 0) {
+                requestedBuilder.append(scope).append(' ');
+            }
+        }
+        requestedBuilder.append("admin:unknown");
+        allowedScopes = allowedBuilder.toString();
+        requestedScopes = requestedBuilder.toString();
+        allowed = scopeRegistry.toScopeSet(allowedScopes);
+    }
+
+    @Benchmark
+    public String grantRequestedScopes() {
+        return scopeRegistry.grant(requestedScopes, allowed, allowedScopes);
+    }
+}
@@ -0,0 +1,75 @@
+package com.natwest.platform.auth.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count for one endpoint, safe for concurrent writers
+ */
+final class EndpointStats {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final String name;
+    private final Recorder recorder = new Recorder(MAX_TRACKABLE_NANOS, 3);
+    private final LongAdder errors = new LongAdder();
+    private Histogram histogram;
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String getName() { return name; }
+
+    void recordSuccess(long latencyNanos) {
+        recorder.recordValue(Math.min(latencyNanos, MAX_TRACKABLE_NANOS));
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Discard everything recorded so far (end of warm-up)
+     */
+    void reset() {
+        recorder.reset();
+        errors.reset();
+    }
+
+    /**
+     * Freeze the recorded interval; call once at the end of the measured phase
+     */
+    void finish() {
+        histogram = recorder.getIntervalHistogram();
+    }
+
+    Histogram histogram() { return histogram; }
+
+    Map<String, Object> summary(double elapsedSeconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", name);
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("errors", errors.sum());
+        summary.put("throughput_per_sec", round(histogram.getTotalCount() / elapsedSeconds));
+        summary.put("p50_ms", millis(histogram.getValueAtPercentile(50)));
+        summary.put("p99_ms", millis(histogram.getValueAtPercentile(99)));
+        summary.put("p999_ms", millis(histogram.getValueAtPercentile(99.9)));
+        summary.put("max_ms", millis(histogram.getMaxValue()));
+        summary.put("mean_ms", round(histogram.getMean() / 1_000_000.0));
+        return summary;
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
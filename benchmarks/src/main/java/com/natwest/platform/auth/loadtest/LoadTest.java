@@ -0,0 +1,344 @@
+package com.natwest.platform.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.natwest.platform.auth.AuthServerDemoApplication;
+import com.natwest.platform.auth.entity.OAuth2Client;
+import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * End-to-end load test for /oauth2/token and /oauth2/introspect.
+ *
+ * Starts the application on a random port against a private in-memory H2 database,
+ * seeds simulated clients through the repository, issues one token per client as
+ * warm-up, then drives a closed-loop mix of token and introspection requests from
+ * a fixed pool of worker threads. Latency percentiles and throughput are printed
+ * and written to load-test-report.json plus one .hgrm distribution per endpoint.
+ *
+ * Arguments are key=value pairs: clients, threads, tenants, warmup-seconds,
+ * duration-seconds, introspect-ratio (0..1) and output (report directory).
+ */
+public class LoadTest {
+
+    private static final String CLIENT_SECRET = "load-test-secret";
+
+    private static final String CLIENT_SCOPES = "read:accounts,write:transactions";
+
+    private static final int SEED_BATCH_SIZE = 500;
+
+    private final Map<String, String> settings;
+    private final int clientCount;
+    private final int threads;
+    private final int tenants;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final double introspectRatio;
+    private final File outputDir;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final EndpointStats tokenStats = new EndpointStats("/oauth2/token");
+    private final EndpointStats introspectStats = new EndpointStats("/oauth2/introspect");
+
+    private URI tokenUri;
+    private URI introspectUri;
+    private String[] clientIds;
+    private AtomicReferenceArray<String> tokens;
+
+    LoadTest(Map<String, String> settings) {
+        this.settings = settings;
+        this.clientCount = Integer.parseInt(settings.getOrDefault("clients", "2000"));
+        this.threads = Integer.parseInt(settings.getOrDefault("threads", "32"));
+        this.tenants = Integer.parseInt(settings.getOrDefault("tenants", "20"));
+        this.warmupSeconds = Integer.parseInt(settings.getOrDefault("warmup-seconds", "10"));
+        this.durationSeconds = Integer.parseInt(settings.getOrDefault("duration-seconds", "60"));
+        this.introspectRatio = Double.parseDouble(settings.getOrDefault("introspect-ratio", "0.8"));
+        this.outputDir = new File(settings.getOrDefault("output", "target/loadtest"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0 && eq < arg.length() - 1) {
+                settings.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        new LoadTest(settings).run();
+    }
+
+    void run() throws Exception {
+        ConfigurableApplicationContext context = startServer();
+        try {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            String base = "http://localhost:" + port + context.getEnvironment().getProperty("server.servlet.context-path", "");
+            tokenUri = URI.create(base + "/oauth2/token");
+            introspectUri = URI.create(base + "/oauth2/introspect");
+
+            seedClients(context);
+            issueInitialTokens();
+
+            log("Warm-up: %d s with %d threads", warmupSeconds, threads);
+            drive(warmupSeconds);
+            tokenStats.reset();
+            introspectStats.reset();
+
+            log("Measuring: %d s with %d threads, introspect ratio %.2f", durationSeconds, threads, introspectRatio);
+            long start = System.nanoTime();
+            drive(durationSeconds);
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            tokenStats.finish();
+            introspectStats.finish();
+
+            writeReport(elapsedSeconds);
+        } finally {
+            context.close();
+        }
+    }
+
+    private ConfigurableApplicationContext startServer() {
+        // Passed as command-line arguments so they take precedence over application.yml
+        return new SpringApplicationBuilder(AuthServerDemoApplication.class)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.natwest.platform.auth=WARN");
+    }
+
+    /**
+     * Insert the simulated clients; they share one BCrypt hash so seeding stays fast
+     */
+    private void seedClients(ConfigurableApplicationContext context) {
+        OAuth2ClientRepository repository = context.getBean(OAuth2ClientRepository.class);
+        String secretHash = context.getBean(PasswordEncoder.class).encode(CLIENT_SECRET);
+
+        clientIds = new String[clientCount];
+        List<OAuth2Client> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < clientCount; i++) {
+            clientIds[i] = String.format("load-client-%05d", i);
+            OAuth2Client client = new OAuth2Client(clientIds[i], secretHash,
+                    "Load Test Client " + i, String.format("load-tenant-%02d", i % tenants));
+            client.setScopes(CLIENT_SCOPES);
+            batch.add(client);
+            if (batch.size() == SEED_BATCH_SIZE) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        repository.saveAll(batch);
+        log("Seeded %d clients across %d tenants", clientCount, tenants);
+    }
+
+    /**
+     * One token per client, so every client's secret has been verified once
+     * and introspection has a realistic pool of distinct tokens
+     */
+    private void issueInitialTokens() throws Exception {
+        tokens = new AtomicReferenceArray<>(clientCount);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < clientCount; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    tokens.set(index, requestToken(index, null));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        log("Issued initial tokens for %d clients", clientCount);
+    }
+
+    /**
+     * Run the request mix on every worker thread until the deadline
+     */
+    private void drive(int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        int index = random.nextInt(clientCount);
+                        if (random.nextDouble() < introspectRatio) {
+                            introspect(tokens.get(index));
+                        } else {
+                            String token = requestToken(index, tokenStats);
+                            if (token != null) {
+                                tokens.set(index, token);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private String requestToken(int index, EndpointStats stats) {
+        String form = "grant_type=client_credentials"
+                + "&client_id=" + encode(clientIds[index])
+                + "&client_secret=" + encode(CLIENT_SECRET)
+                + "&scope=" + encode(CLIENT_SCOPES);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(formPost(tokenUri, form), HttpResponse.BodyHandlers.ofString());
+            long latency = System.nanoTime() - start;
+            String token = response.statusCode() == 200 ? extractAccessToken(response.body()) : null;
+            if (stats != null) {
+                if (token != null) {
+                    stats.recordSuccess(latency);
+                } else {
+                    stats.recordError();
+                }
+            }
+            return token;
+        } catch (IOException | InterruptedException e) {
+            if (stats != null) {
+                stats.recordError();
+            }
+            return null;
+        }
+    }
+
+    private void introspect(String token) {
+        if (token == null) {
+            introspectStats.recordError();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(formPost(introspectUri, "token=" + encode(token)),
+                    HttpResponse.BodyHandlers.ofString());
+            long latency = System.nanoTime() - start;
+            if (response.statusCode() == 200 && response.body().contains("\"active\":true")) {
+                introspectStats.recordSuccess(latency);
+            } else {
+                introspectStats.recordError();
+            }
+        } catch (IOException | InterruptedException e) {
+            introspectStats.recordError();
+        }
+    }
+
+    private void writeReport(double elapsedSeconds) throws IOException {
+        outputDir.mkdirs();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("settings", describeSettings());
+        report.put("elapsed_seconds", Math.round(elapsedSeconds * 1000) / 1000.0);
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        endpoints.add(tokenStats.summary(elapsedSeconds));
+        endpoints.add(introspectStats.summary(elapsedSeconds));
+        report.put("endpoints", endpoints);
+
+        File reportFile = new File(outputDir, "load-test-report.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+        writeDistribution(tokenStats, "token-latency.hgrm");
+        writeDistribution(introspectStats, "introspect-latency.hgrm");
+
+        System.out.println();
+        System.out.printf("%-22s %10s %8s %12s %10s %10s %10s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms", "p999 ms");
+        for (Map<String, Object> endpoint : endpoints) {
+            System.out.printf("%-22s %10s %8s %12s %10s %10s %10s%n",
+                    endpoint.get("endpoint"), endpoint.get("requests"), endpoint.get("errors"),
+                    endpoint.get("throughput_per_sec"), endpoint.get("p50_ms"),
+                    endpoint.get("p99_ms"), endpoint.get("p999_ms"));
+        }
+        System.out.println();
+        log("Report written to %s", reportFile.getPath());
+    }
+
+    private void writeDistribution(EndpointStats stats, String fileName) throws IOException {
+        Histogram histogram = stats.histogram();
+        try (PrintStream out = new PrintStream(new File(outputDir, fileName), StandardCharsets.UTF_8.name())) {
+            // Values are recorded in nanoseconds; report them in milliseconds
+            histogram.outputPercentileDistribution(out, 1_000_000.0);
+        }
+    }
+
+    private Map<String, Object> describeSettings() {
+        Map<String, Object> described = new LinkedHashMap<>(settings);
+        described.put("clients", clientCount);
+        described.put("threads", threads);
+        described.put("tenants", tenants);
+        described.put("warmup-seconds", warmupSeconds);
+        described.put("duration-seconds", durationSeconds);
+        described.put("introspect-ratio", introspectRatio);
+        described.put("output", outputDir.getPath());
+        return described;
+    }
+
+    static HttpRequest formPost(URI uri, String form) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    private static String extractAccessToken(String body) {
+        String marker = "\"access_token\":\"";
+        int start = body.indexOf(marker);
+        if (start < 0) {
+            return null;
+        }
+        start += marker.length();
+        int end = body.indexOf('"', start);
+        return end > start ? body.substring(start, end) : null;
+    }
+
+    static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.println("[load-test] " + String.format(format, args));
+    }
+}
@@ -0,0 +1,290 @@
+package com.natwest.platform.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.natwest.platform.auth.AuthServerDemoApplication;
+import com.natwest.platform.auth.entity.OAuth2Client;
+import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token renewal storm after a mass restart, with and without lifetime jitter.
+ *
+ * For each jitter ratio, starts the application on a random port and seeds clients
+ * with a short accessTokenValiditySeconds. Every client's secret is verified once,
+ * the way a server that stayed up would already have it cached. Then all clients
+ * request a token at the same instant (the restart), and each renews exactly when
+ * its expires_in runs out. Token requests are counted per second; peak QPS over the
+ * renewal waves shows how far jitter flattens them.
+ *
+ * Arguments are key=value pairs: clients, threads, validity-seconds, duration-seconds,
+ * jitter-ratios (comma-separated) and output (report directory).
+ */
+public class RenewalStormTest {
+
+    private static final String CLIENT_SECRET = "renewal-test-secret";
+
+    private static final String CLIENT_SCOPES = "read:accounts";
+
+    private final int clientCount;
+    private final int threads;
+    private final int validitySeconds;
+    private final int durationSeconds;
+    private final List<Double> jitterRatios = new ArrayList<>();
+    private final File outputDir;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    RenewalStormTest(Map<String, String> settings) {
+        this.clientCount = Integer.parseInt(settings.getOrDefault("clients", "500"));
+        this.threads = Integer.parseInt(settings.getOrDefault("threads", "64"));
+        this.validitySeconds = Integer.parseInt(settings.getOrDefault("validity-seconds", "20"));
+        this.durationSeconds = Integer.parseInt(settings.getOrDefault("duration-seconds", "70"));
+        for (String ratio : settings.getOrDefault("jitter-ratios", "0,0.2").split(",")) {
+            jitterRatios.add(Double.parseDouble(ratio.trim()));
+        }
+        this.outputDir = new File(settings.getOrDefault("output", "target/loadtest"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0 && eq < arg.length() - 1) {
+                settings.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        new RenewalStormTest(settings).run();
+    }
+
+    void run() throws Exception {
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (double ratio : jitterRatios) {
+            runs.add(runScenario(ratio));
+        }
+        writeReport(runs);
+    }
+
+    /**
+     * One restart-and-renew run against a fresh server with the given jitter ratio
+     */
+    private Map<String, Object> runScenario(double jitterRatio) throws Exception {
+        log("Jitter ratio %.2f: %d clients, %d s validity, %d s", jitterRatio, clientCount, validitySeconds, durationSeconds);
+        ConfigurableApplicationContext context = startServer(jitterRatio);
+        try {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            URI tokenUri = URI.create("http://localhost:" + port
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "") + "/oauth2/token");
+            String[] clientIds = seedClients(context);
+
+            // Verify every secret once, so the storm measures renewals rather than first-time BCrypt
+            Arrays.stream(clientIds).parallel().forEach(clientId -> requestToken(tokenUri, clientId));
+
+            return storm(tokenUri, clientIds, jitterRatio);
+        } finally {
+            context.close();
+        }
+    }
+
+    private Map<String, Object> storm(URI tokenUri, String[] clientIds, double jitterRatio) throws InterruptedException {
+        AtomicLongArray perSecond = new AtomicLongArray(durationSeconds + 1);
+        AtomicLong errors = new AtomicLong();
+        ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(threads);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        // Every client "restarts" at the same instant and then renews as each token expires
+        CountDownLatch restart = new CountDownLatch(1);
+        for (String clientId : clientIds) {
+            scheduler.execute(() -> {
+                try {
+                    restart.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                renew(scheduler, tokenUri, clientId, start, deadline, perSecond, errors);
+            });
+        }
+        restart.countDown();
+
+        TimeUnit.NANOSECONDS.sleep(deadline - System.nanoTime());
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        return summarise(jitterRatio, perSecond, errors.get());
+    }
+
+    private void renew(ScheduledExecutorService scheduler, URI tokenUri, String clientId, long start, long deadline,
+                       AtomicLongArray perSecond, AtomicLong errors) {
+        long now = System.nanoTime();
+        if (now >= deadline) {
+            return;
+        }
+        perSecond.incrementAndGet((int) TimeUnit.NANOSECONDS.toSeconds(now - start));
+        Long expiresIn = requestToken(tokenUri, clientId);
+        if (expiresIn == null) {
+            errors.incrementAndGet();
+            // Retry after a second, as a client would
+            expiresIn = 1L;
+        }
+        try {
+            scheduler.schedule(() -> renew(scheduler, tokenUri, clientId, start, deadline, perSecond, errors),
+                    expiresIn, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // The run has ended
+        }
+    }
+
+    /**
+     * Peak QPS during the restart second versus during the renewal waves that follow
+     */
+    private Map<String, Object> summarise(double jitterRatio, AtomicLongArray perSecond, long errors) {
+        List<Long> series = new ArrayList<>();
+        long total = 0;
+        long renewalPeak = 0;
+        long renewalTotal = 0;
+        int renewalSeconds = 0;
+        // Renewals can start once the shortest jittered lifetime has passed
+        int renewalsFrom = Math.max(1, (int) Math.floor(validitySeconds * (1 - jitterRatio)) - 1);
+        for (int second = 0; second < durationSeconds; second++) {
+            long count = perSecond.get(second);
+            series.add(count);
+            total += count;
+            if (second >= renewalsFrom) {
+                renewalPeak = Math.max(renewalPeak, count);
+                renewalTotal += count;
+                renewalSeconds++;
+            }
+        }
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("jitter_ratio", jitterRatio);
+        run.put("requests", total);
+        run.put("errors", errors);
+        run.put("restart_peak_qps", series.isEmpty() ? 0 : series.get(0));
+        run.put("renewal_peak_qps", renewalPeak);
+        double renewalMean = renewalSeconds > 0 ? (double) renewalTotal / renewalSeconds : 0;
+        run.put("renewal_mean_qps", Math.round(renewalMean * 10) / 10.0);
+        run.put("renewal_peak_to_mean", renewalMean > 0 ? Math.round(renewalPeak / renewalMean * 100) / 100.0 : 0);
+        run.put("qps_per_second", series);
+        log("Jitter ratio %.2f: restart %d req/s, renewal peak %d req/s (mean %.1f), %d errors",
+                jitterRatio, series.get(0), renewalPeak, renewalMean, errors);
+        return run;
+    }
+
+    private ConfigurableApplicationContext startServer(double jitterRatio) {
+        // Passed as command-line arguments so they take precedence over application.yml
+        return new SpringApplicationBuilder(AuthServerDemoApplication.class)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:renewal-" + UUID.randomUUID() + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.natwest.platform.auth=WARN",
+                        "--natwest.auth.jwt.lifetime-jitter.ratio=" + jitterRatio,
+                        // Every renewal should be a real issuance
+                        "--natwest.auth.token-coalescing.reuse-window-ms=0");
+    }
+
+    private String[] seedClients(ConfigurableApplicationContext context) {
+        OAuth2ClientRepository repository = context.getBean(OAuth2ClientRepository.class);
+        String secretHash = context.getBean(PasswordEncoder.class).encode(CLIENT_SECRET);
+        String[] clientIds = new String[clientCount];
+        List<OAuth2Client> clients = new ArrayList<>(clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            clientIds[i] = String.format("renewal-client-%05d", i);
+            OAuth2Client client = new OAuth2Client(clientIds[i], secretHash, "Renewal Client " + i, "renewal-tenant");
+            client.setScopes(CLIENT_SCOPES);
+            client.setAccessTokenValiditySeconds(validitySeconds);
+            clients.add(client);
+        }
+        repository.saveAll(clients);
+        return clientIds;
+    }
+
+    /**
+     * Request a token and return its expires_in, or null on failure
+     */
+    private Long requestToken(URI tokenUri, String clientId) {
+        String form = "grant_type=client_credentials"
+                + "&client_id=" + LoadTest.encode(clientId)
+                + "&client_secret=" + LoadTest.encode(CLIENT_SECRET)
+                + "&scope=" + LoadTest.encode(CLIENT_SCOPES);
+        try {
+            HttpResponse<String> response = http.send(LoadTest.formPost(tokenUri, form), HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? extractExpiresIn(response.body()) : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void writeReport(List<Map<String, Object>> runs) throws IOException {
+        outputDir.mkdirs();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("clients", clientCount);
+        report.put("validity_seconds", validitySeconds);
+        report.put("duration_seconds", durationSeconds);
+        report.put("runs", runs);
+        File reportFile = new File(outputDir, "renewal-storm-report.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+
+        System.out.println();
+        System.out.printf("%-8s %10s %8s %14s %14s %14s %10s%n",
+                "Jitter", "Requests", "Errors", "Restart req/s", "Renewal peak", "Renewal mean", "Peak/mean");
+        for (Map<String, Object> run : runs) {
+            System.out.printf("%-8s %10s %8s %14s %14s %14s %10s%n",
+                    run.get("jitter_ratio"), run.get("requests"), run.get("errors"), run.get("restart_peak_qps"),
+                    run.get("renewal_peak_qps"), run.get("renewal_mean_qps"), run.get("renewal_peak_to_mean"));
+        }
+        System.out.println();
+        log("Report written to %s", reportFile.getPath());
+    }
+
+    private static Long extractExpiresIn(String body) {
+        String marker = "\"expires_in\":";
+        int start = body.indexOf(marker);
+        if (start < 0) {
+            return null;
+        }
+        start += marker.length();
+        int end = start;
+        while (end < body.length() && Character.isDigit(body.charAt(end))) {
+            end++;
+        }
+        return end > start ? Long.parseLong(body.substring(start, end)) : null;
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.println("[renewal-storm] " + String.format(format, args));
+    }
+}
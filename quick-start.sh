@@ -32,7 +32,7 @@ if [ $? -eq 0 ]; then
     echo ""
     
     # Run the application
-    java -jar target/*.jar
+    java -jar target/*-exec.jar
 else
     echo "❌ Build failed. Please check the error messages above."
     exit 1
@@ -7,6 +7,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
  * NatWest Authorization Server Demo Application
@@ -18,6 +19,9 @@ public class AuthServerDemoApplication implements CommandLineRunner {
     @Autowired
     private OAuth2ClientRepository clientRepository;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     public static void main(String[] args) {
         System.out.println("Starting NatWest Authorization Server Demo...");
         SpringApplication.run(AuthServerDemoApplication.class, args);
@@ -56,7 +60,7 @@ public class AuthServerDemoApplication implements CommandLineRunner {
         System.out.println("API Info: http://localhost:9000/auth/api/info");
         System.out.println("Clients List: http://localhost:9000/auth/api/clients");
         System.out.println("H2 Console: http://localhost:9000/auth/h2-console");
-        System.out.println("JWKS Endpoint: http://localhost:9000/auth/.well-known/jwks.json");
+        System.out.println("JWKS Endpoint: http://localhost:9000/auth/oauth2/.well-known/jwks.json");
         System.out.println("OAuth2 Discovery: http://localhost:9000/auth/.well-known/oauth-authorization-server");
         System.out.println("\n=== Sample Token Request ===");
         System.out.println("curl -X POST http://localhost:9000/auth/oauth2/token \\");
@@ -68,7 +72,7 @@ public class AuthServerDemoApplication implements CommandLineRunner {
     private void createSampleClientIfNotExists(String clientId, String clientSecret, String clientName, 
                                              String tenantId, String scopes) {
         if (!clientRepository.existsByClientId(clientId)) {
-            OAuth2Client client = new OAuth2Client(clientId, clientSecret, clientName, tenantId);
+            OAuth2Client client = new OAuth2Client(clientId, passwordEncoder.encode(clientSecret), clientName, tenantId);
             client.setScopes(scopes);
             client.setAccessTokenValiditySeconds(3600);
             clientRepository.save(client);
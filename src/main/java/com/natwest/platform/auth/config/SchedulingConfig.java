@@ -0,0 +1,12 @@
+package com.natwest.platform.auth.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables background tasks such as write-behind flushes
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,10 +1,18 @@
 package com.natwest.platform.auth.controller;
 
 import com.natwest.platform.auth.entity.OAuth2Client;
+import com.natwest.platform.auth.repository.ClientSummary;
 import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import com.natwest.platform.auth.service.ChangeFeed;
+import com.natwest.platform.auth.service.ClientListingService;
+import com.natwest.platform.auth.service.ClientRegistryCache;
+import com.natwest.platform.auth.service.ClientSecretVerifier;
+import com.natwest.platform.auth.service.JwtService;
+import com.natwest.platform.auth.service.TokenEpochs;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
@@ -18,6 +26,27 @@ public class ClientRegistrationController {
     @Autowired
     private OAuth2ClientRepository clientRepository;
 
+    @Autowired
+    private ClientRegistryCache clientRegistryCache;
+
+    @Autowired
+    private ClientSecretVerifier clientSecretVerifier;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ClientListingService clientListingService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenEpochs tokenEpochs;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
     /**
      * Client Registration Request DTO
      */
@@ -85,6 +114,16 @@ public class ClientRegistrationController {
             this.accessTokenValiditySeconds = client.getAccessTokenValiditySeconds();
         }
 
+        public ClientRegistrationResponse(ClientSummary client) {
+            this.clientId = client.getClientId();
+            this.clientName = client.getClientName();
+            this.tenantId = client.getTenantId();
+            this.scopes = Arrays.asList(client.getScopes().split(","));
+            this.status = client.getStatus().toString();
+            this.createdAt = client.getCreatedAt().toString();
+            this.accessTokenValiditySeconds = client.getAccessTokenValiditySeconds();
+        }
+
         // Getters and setters
         public String getClientId() { return clientId; }
         public void setClientId(String clientId) { this.clientId = clientId; }
@@ -119,6 +158,11 @@ public class ClientRegistrationController {
     @PostMapping
     public ResponseEntity<ClientRegistrationResponse> registerClient(@RequestBody ClientRegistrationRequest request) {
         try {
+            // Tokens must not outlive their signing key's overlap window
+            if (!jwtService.isAllowedValidity(request.getAccessTokenValiditySeconds())) {
+                return ResponseEntity.badRequest().build();
+            }
+
             // Generate client ID and secret
             String clientId = generateClientId(request.getClientName(), request.getTenantId());
             String clientSecret = generateClientSecret();
@@ -126,7 +170,7 @@ public class ClientRegistrationController {
             // Create new OAuth2Client entity
             OAuth2Client client = new OAuth2Client();
             client.setClientId(clientId);
-            client.setClientSecret(clientSecret);
+            client.setClientSecret(passwordEncoder.encode(clientSecret));
             client.setClientName(request.getClientName());
             client.setTenantId(request.getTenantId());
             client.setScopes(String.join(",", request.getScopes()));
@@ -139,9 +183,12 @@ public class ClientRegistrationController {
 
             // Save to database
             OAuth2Client savedClient = clientRepository.save(client);
+            clientRegistryCache.invalidate(savedClient.getClientId());
+            changeFeed.publish(ChangeFeed.Type.CLIENT, savedClient.getClientId());
 
-            // Return response
+            // Return response (the plaintext secret is only ever shown here)
             ClientRegistrationResponse response = new ClientRegistrationResponse(savedClient);
+            response.setClientSecret(clientSecret);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
 
         } catch (Exception e) {
@@ -150,15 +197,17 @@ public class ClientRegistrationController {
     }
 
     /**
-     * List all clients
+     * List clients one keyset page at a time
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> listClients() {
+    public ResponseEntity<Map<String, Object>> listClients(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
         try {
-            List<OAuth2Client> clients = clientRepository.findAll();
+            ClientListingService.ClientPage page = clientListingService.page(cursor, limit);
             
             List<Map<String, Object>> clientList = new ArrayList<>();
-            for (OAuth2Client client : clients) {
+            for (ClientSummary client : page.getClients()) {
                 Map<String, Object> clientInfo = new HashMap<>();
                 clientInfo.put("clientId", client.getClientId());
                 clientInfo.put("clientName", client.getClientName());
@@ -172,10 +221,16 @@ public class ClientRegistrationController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("clients", clientList);
-            response.put("totalCount", clients.size());
+            response.put("approximateTotal", page.getApproximateTotal());
+            response.put("nextCursor", page.getNextCursor());
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "invalid_request");
+            error.put("error_description", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -187,11 +242,11 @@ public class ClientRegistrationController {
     @GetMapping("/{clientId}")
     public ResponseEntity<ClientRegistrationResponse> getClient(@PathVariable String clientId) {
         try {
-            Optional<OAuth2Client> clientOpt = clientRepository.findByClientId(clientId);
+            Optional<ClientSummary> clientOpt = clientRepository.findSummaryByClientId(clientId);
             
             if (clientOpt.isPresent()) {
                 ClientRegistrationResponse response = new ClientRegistrationResponse(clientOpt.get());
-                // Don't return the secret in GET requests
+                // The summary never carries the secret; keep the masked field for compatibility
                 response.setClientSecret("***");
                 return ResponseEntity.ok(response);
             } else {
@@ -211,6 +266,9 @@ public class ClientRegistrationController {
             @PathVariable String clientId, 
             @RequestBody ClientRegistrationRequest request) {
         try {
+            if (!jwtService.isAllowedValidity(request.getAccessTokenValiditySeconds())) {
+                return ResponseEntity.badRequest().build();
+            }
             Optional<OAuth2Client> clientOpt = clientRepository.findByClientId(clientId);
             
             if (clientOpt.isPresent()) {
@@ -228,6 +286,9 @@ public class ClientRegistrationController {
                 }
 
                 OAuth2Client savedClient = clientRepository.save(client);
+                clientRegistryCache.invalidate(clientId);
+                clientSecretVerifier.invalidate(clientId);
+                changeFeed.publish(ChangeFeed.Type.CLIENT, clientId);
                 ClientRegistrationResponse response = new ClientRegistrationResponse(savedClient);
                 // Don't return the secret in update responses
                 response.setClientSecret("***");
@@ -243,7 +304,7 @@ public class ClientRegistrationController {
     }
 
     /**
-     * Deactivate client
+     * Deactivate client and revoke every token already issued to it
      */
     @DeleteMapping("/{clientId}")
     public ResponseEntity<Map<String, Object>> deactivateClient(@PathVariable String clientId) {
@@ -254,6 +315,10 @@ public class ClientRegistrationController {
                 OAuth2Client client = clientOpt.get();
                 client.setStatus(OAuth2Client.ClientStatus.DEPRECATED);
                 clientRepository.save(client);
+                clientRegistryCache.invalidate(clientId);
+                clientSecretVerifier.invalidate(clientId);
+                changeFeed.publish(ChangeFeed.Type.CLIENT, clientId);
+                tokenEpochs.bump(TokenEpochs.Subject.CLIENT, clientId);
 
                 Map<String, Object> response = new HashMap<>();
                 response.put("message", "Client " + clientId + " has been deactivated");
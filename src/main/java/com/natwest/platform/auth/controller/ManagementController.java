@@ -1,11 +1,21 @@
 package com.natwest.platform.auth.controller;
 
 import com.natwest.platform.auth.entity.OAuth2Client;
+import com.natwest.platform.auth.repository.ClientSummary;
 import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import com.natwest.platform.auth.service.ChangeFeed;
+import com.natwest.platform.auth.service.ClientListingService;
+import com.natwest.platform.auth.service.ClientRegistryCache;
+import com.natwest.platform.auth.service.JwtService;
+import com.natwest.platform.auth.service.ClientStoreHealthIndicator;
+import com.natwest.platform.auth.service.TokenEpochs;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
 import java.util.*;
@@ -22,6 +32,27 @@ public class ManagementController {
     @Autowired
     private OAuth2ClientRepository clientRepository;
 
+    @Autowired
+    private ClientRegistryCache clientRegistryCache;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ClientListingService clientListingService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ClientStoreHealthIndicator clientStoreHealth;
+
+    @Autowired
+    private TokenEpochs tokenEpochs;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
     /**
      * Registration request DTO
      */
@@ -99,7 +130,7 @@ public class ManagementController {
     }
 
     /**
-     * Health check endpoint
+     * Health check endpoint, served from the background health snapshot
      */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
@@ -109,13 +140,12 @@ public class ManagementController {
         health.put("version", "1.0.0");
         health.put("timestamp", System.currentTimeMillis());
         
-        try {
-            long clientCount = clientRepository.count();
-            health.put("database", "UP");
-            health.put("total_clients", clientCount);
-        } catch (Exception e) {
-            health.put("database", "DOWN");
-            health.put("database_error", e.getMessage());
+        ClientStoreHealthIndicator.Snapshot snapshot = clientStoreHealth.getSnapshot();
+        health.put("database", snapshot.isDatabaseUp() ? "UP" : "DOWN");
+        health.put("total_clients", snapshot.getTotalClients());
+        health.put("checked_at", snapshot.getCheckedAt().toString());
+        if (snapshot.getError() != null) {
+            health.put("database_error", snapshot.getError());
         }
         
         return ResponseEntity.ok(health);
@@ -148,13 +178,20 @@ public class ManagementController {
     }
 
     /**
-     * List all clients (legacy endpoint)
+     * List clients one keyset page at a time (legacy endpoint)
      */
     @GetMapping("/clients")
-    public ResponseEntity<Map<String, Object>> listClients() {
-        List<OAuth2Client> clients = clientRepository.findAll();
-        
-        List<Map<String, Object>> clientList = clients.stream().map(client -> {
+    public ResponseEntity<Map<String, Object>> listClients(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        ClientListingService.ClientPage page;
+        try {
+            page = clientListingService.page(cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return invalidRequest(e.getMessage());
+        }
+
+        List<Map<String, Object>> clientList = page.getClients().stream().map(client -> {
             Map<String, Object> clientInfo = new HashMap<>();
             clientInfo.put("client_id", client.getClientId());
             clientInfo.put("client_name", client.getClientName());
@@ -167,8 +204,9 @@ public class ManagementController {
         }).collect(Collectors.toList());
 
         Map<String, Object> response = new HashMap<>();
-        response.put("total", clientList.size());
+        response.put("approximate_total", page.getApproximateTotal());
         response.put("clients", clientList);
+        response.put("next_cursor", page.getNextCursor());
         
         return ResponseEntity.ok(response);
     }
@@ -183,6 +221,9 @@ public class ManagementController {
             if (request.getClientName() == null || request.getTenantId() == null || request.getScopes() == null) {
                 return ResponseEntity.badRequest().build();
             }
+            if (!jwtService.isAllowedValidity(request.getAccessTokenValiditySeconds())) {
+                return ResponseEntity.badRequest().build();
+            }
 
             // Generate client ID and secret
             String clientId = generateClientId(request.getClientName(), request.getTenantId());
@@ -191,7 +232,7 @@ public class ManagementController {
             // Create new OAuth2Client entity
             OAuth2Client client = new OAuth2Client();
             client.setClientId(clientId);
-            client.setClientSecret(clientSecret);
+            client.setClientSecret(passwordEncoder.encode(clientSecret));
             client.setClientName(request.getClientName());
             client.setTenantId(request.getTenantId());
             client.setScopes(String.join(",", request.getScopes()));
@@ -204,11 +245,13 @@ public class ManagementController {
 
             // Save to database
             OAuth2Client savedClient = clientRepository.save(client);
+            clientRegistryCache.invalidate(savedClient.getClientId());
+            changeFeed.publish(ChangeFeed.Type.CLIENT, savedClient.getClientId());
 
             // Create response
             RegistrationResponse response = new RegistrationResponse();
             response.setClientId(savedClient.getClientId());
-            response.setClientSecret(savedClient.getClientSecret());
+            response.setClientSecret(clientSecret);
             response.setClientName(savedClient.getClientName());
             response.setTenantId(savedClient.getTenantId());
             response.setScopes(Arrays.asList(savedClient.getScopes().split(",")));
@@ -225,15 +268,17 @@ public class ManagementController {
     }
 
     /**
-     * List all clients (v1 endpoint)
+     * List clients one keyset page at a time (v1 endpoint)
      */
     @GetMapping("/v1/clients")
-    public ResponseEntity<Map<String, Object>> listClientsV1() {
+    public ResponseEntity<Map<String, Object>> listClientsV1(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
         try {
-            List<OAuth2Client> clients = clientRepository.findAll();
+            ClientListingService.ClientPage page = clientListingService.page(cursor, limit);
             
             List<Map<String, Object>> clientList = new ArrayList<>();
-            for (OAuth2Client client : clients) {
+            for (ClientSummary client : page.getClients()) {
                 Map<String, Object> clientInfo = new HashMap<>();
                 clientInfo.put("clientId", client.getClientId());
                 clientInfo.put("clientName", client.getClientName());
@@ -246,16 +291,71 @@ public class ManagementController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("clients", clientList);
-            response.put("totalCount", clients.size());
+            response.put("approximateTotal", page.getApproximateTotal());
+            response.put("nextCursor", page.getNextCursor());
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return invalidRequest(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Export every client as newline-delimited JSON, streamed as rows are read
+     */
+    @GetMapping(value = "/v1/clients/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportClients() {
+        StreamingResponseBody body = out -> clientListingService.exportNdjson(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Revoke every token issued so far to a client (one epoch bump)
+     */
+    @PostMapping("/v1/clients/{clientId}/revoke-tokens")
+    public ResponseEntity<Map<String, Object>> revokeClientTokens(@PathVariable String clientId) {
+        if (!clientRepository.findSummaryByClientId(clientId).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        long epoch = tokenEpochs.bump(TokenEpochs.Subject.CLIENT, clientId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("clientId", clientId);
+        response.put("tokenEpoch", epoch);
+        response.put("revokedAt", Instant.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Revoke every token issued so far to any client of a tenant (one epoch bump)
+     */
+    @PostMapping("/v1/tenants/{tenantId}/revoke-tokens")
+    public ResponseEntity<Map<String, Object>> revokeTenantTokens(@PathVariable String tenantId) {
+        if (!clientRepository.existsByTenantId(tenantId)) {
+            return ResponseEntity.notFound().build();
+        }
+        long epoch = tokenEpochs.bump(TokenEpochs.Subject.TENANT, tenantId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("tenantId", tenantId);
+        response.put("tokenEpoch", epoch);
+        response.put("revokedAt", Instant.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> invalidRequest(String description) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "invalid_request");
+        error.put("error_description", description);
+        return ResponseEntity.badRequest().body(error);
+    }
+
     /**
      * Generate client ID based on name and tenant
      */
@@ -2,13 +2,18 @@ package com.natwest.platform.auth.controller;
 
 import com.natwest.platform.auth.service.JwtService;
 import com.natwest.platform.auth.service.OAuth2Service;
+import com.natwest.platform.auth.service.TokenIntrospection;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,6 +29,9 @@ public class OAuth2Controller {
     @Autowired
     private JwtService jwtService;
 
+    @Value("${natwest.auth.jwt.jwks-max-age-seconds:300}")
+    private long jwksMaxAgeSeconds;
+
     /**
      * Token endpoint for client credentials grant
      */
@@ -62,33 +70,99 @@ public class OAuth2Controller {
      * Token introspection endpoint
      */
     @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
-    public ResponseEntity<Map<String, Object>> introspect(@RequestParam("token") String token) {
+    public ResponseEntity<TokenIntrospection> introspect(@RequestParam("token") String token) {
+        try {
+            return ResponseEntity.ok(oauth2Service.introspectToken(token));
+        } catch (Exception e) {
+            return ResponseEntity.ok(TokenIntrospection.inactive());
+        }
+    }
+
+    /**
+     * Token revocation endpoint (RFC 7009); unknown, invalid and expired tokens are not an error
+     */
+    @PostMapping(value = "/revoke", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<Map<String, Object>> revoke(
+            @RequestParam("token") String token,
+            @RequestParam("client_id") String clientId,
+            @RequestParam("client_secret") String clientSecret,
+            @RequestParam(value = "token_type_hint", required = false) String tokenTypeHint) {
+
         try {
-            Map<String, Object> response = oauth2Service.introspectToken(token);
+            // Only access tokens are issued, so token_type_hint needs no handling
+            OAuth2Service.RevocationResult result = oauth2Service.revokeToken(clientId, clientSecret, token);
+            if (result == OAuth2Service.RevocationResult.NOT_OWNER) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("error", "unauthorized_client");
+                error.put("error_description", "Token was not issued to this client");
+                return ResponseEntity.badRequest().body(error);
+            }
+            return ResponseEntity.ok().build();
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "invalid_client");
+            error.put("error_description", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "server_error");
+            error.put("error_description", "Internal server error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    /**
+     * Batch introspection request DTO
+     */
+    public static class BatchIntrospectionRequest {
+        private List<String> tokens;
+
+        public List<String> getTokens() { return tokens; }
+        public void setTokens(List<String> tokens) { this.tokens = tokens; }
+    }
+
+    /**
+     * Batch token introspection endpoint (results are returned in request order)
+     */
+    @PostMapping(value = "/introspect/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> introspectBatch(@RequestBody BatchIntrospectionRequest request) {
+        if (request.getTokens() == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "invalid_request");
+            error.put("error_description", "tokens is required");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            List<TokenIntrospection> results = oauth2Service.introspectTokens(request.getTokens());
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", results);
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "invalid_request");
+            error.put("error_description", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
-            error.put("active", false);
-            return ResponseEntity.ok(error);
+            error.put("error", "server_error");
+            error.put("error_description", "Internal server error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
 
     /**
-     * JWKS endpoint (simplified - returns key info)
+     * JWKS endpoint (public verification keys, cacheable by resource servers)
      */
     @GetMapping("/.well-known/jwks.json")
     public ResponseEntity<Map<String, Object>> jwks() {
         Map<String, Object> jwks = new HashMap<>();
-        Map<String, Object> key = new HashMap<>();
-        
-        key.put("kty", "oct"); // Key type: symmetric
-        key.put("alg", "HS256"); // Algorithm
-        key.put("use", "sig"); // Usage: signature
-        key.put("kid", "natwest-demo-key-1"); // Key ID
-        
-        jwks.put("keys", new Object[]{key});
+        jwks.put("keys", jwtService.getPublicJwks());
         
-        return ResponseEntity.ok(jwks);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(jwksMaxAgeSeconds)).cachePublic())
+                .body(jwks);
     }
 
     /**
@@ -101,7 +175,8 @@ public class OAuth2Controller {
         metadata.put("issuer", "http://localhost:9000/auth");
         metadata.put("token_endpoint", "http://localhost:9000/auth/oauth2/token");
         metadata.put("introspection_endpoint", "http://localhost:9000/auth/oauth2/introspect");
-        metadata.put("jwks_uri", "http://localhost:9000/auth/.well-known/jwks.json");
+        metadata.put("revocation_endpoint", "http://localhost:9000/auth/oauth2/revoke");
+        metadata.put("jwks_uri", "http://localhost:9000/auth/oauth2/.well-known/jwks.json");
         metadata.put("grant_types_supported", new String[]{"client_credentials"});
         metadata.put("token_endpoint_auth_methods_supported", new String[]{"client_secret_post", "client_secret_basic"});
         metadata.put("scopes_supported", new String[]{"read:accounts", "write:transactions", "read:treasury", "write:treasury"});
@@ -0,0 +1,78 @@
+package com.natwest.platform.auth.controller;
+
+import com.natwest.platform.auth.service.TrafficAnalytics;
+import com.natwest.platform.auth.service.TrafficAnalytics.Dimension;
+import com.natwest.platform.auth.service.TrafficAnalytics.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Top tenants and clients by token issuance and introspection traffic
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class TrafficAnalyticsController {
+
+    @Autowired
+    private TrafficAnalytics trafficAnalytics;
+
+    /**
+     * Top consumers for every operation and dimension
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> summary(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("enabled", trafficAnalytics.isEnabled());
+        for (Operation operation : Operation.values()) {
+            Map<String, Object> byDimension = new LinkedHashMap<>();
+            for (Dimension dimension : Dimension.values()) {
+                byDimension.put("by_" + name(dimension), report(operation, dimension, limit));
+            }
+            response.put(name(operation), byDimension);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Top consumers for one operation (token, introspection) and dimension (tenant, client)
+     */
+    @GetMapping("/{operation}/{dimension}")
+    public ResponseEntity<Map<String, Object>> top(@PathVariable String operation,
+                                                   @PathVariable String dimension,
+                                                   @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        try {
+            Operation op = Operation.valueOf(operation.toUpperCase(Locale.ROOT));
+            Dimension dim = Dimension.valueOf(dimension.toUpperCase(Locale.ROOT));
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("operation", name(op));
+            response.put("dimension", name(dim));
+            response.putAll(report(op, dim, limit));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "invalid_request");
+            error.put("error_description", "operation must be token or introspection, dimension must be tenant or client");
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    private Map<String, Object> report(Operation operation, Dimension dimension, int limit) {
+        double seconds = trafficAnalytics.coveredSeconds(operation, dimension);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("window_seconds", Math.round(seconds * 10) / 10.0);
+        report.put("total_requests", trafficAnalytics.totalRequests(operation, dimension));
+        report.put("top", trafficAnalytics.top(operation, dimension, Math.max(1, limit)));
+        return report;
+    }
+
+    private static String name(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
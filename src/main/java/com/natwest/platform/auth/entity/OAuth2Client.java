@@ -7,7 +7,10 @@ import java.time.Instant;
  * OAuth2 Client entity for demo
  */
 @Entity
-@Table(name = "oauth2_clients")
+@Table(name = "oauth2_clients", indexes = {
+    @Index(name = "idx_oauth2_clients_tenant_status", columnList = "tenant_id, status"),
+    @Index(name = "idx_oauth2_clients_status", columnList = "status")
+})
 public class OAuth2Client {
 
     @Id
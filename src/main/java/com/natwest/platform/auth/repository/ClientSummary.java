@@ -0,0 +1,57 @@
+package com.natwest.platform.auth.repository;
+
+import com.natwest.platform.auth.entity.OAuth2Client;
+
+import java.time.Instant;
+
+/**
+ * Read-only view of a client for listings and lookups (never carries the secret).
+ * Built by JPQL constructor expressions, so rows are never managed or dirty-checked.
+ */
+public final class ClientSummary {
+
+    private final Long id;
+    private final String clientId;
+    private final String clientName;
+    private final String tenantId;
+    private final String scopes;
+    private final OAuth2Client.ClientStatus status;
+    private final Integer accessTokenValiditySeconds;
+    private final Instant createdAt;
+    private final Instant lastUsedAt;
+
+    public ClientSummary(Long id, String clientId, String clientName, String tenantId, String scopes,
+                         OAuth2Client.ClientStatus status, Integer accessTokenValiditySeconds,
+                         Instant createdAt, Instant lastUsedAt) {
+        this.id = id;
+        this.clientId = clientId;
+        this.clientName = clientName;
+        this.tenantId = tenantId;
+        this.scopes = scopes;
+        this.status = status;
+        this.accessTokenValiditySeconds = accessTokenValiditySeconds;
+        this.createdAt = createdAt;
+        this.lastUsedAt = lastUsedAt;
+    }
+
+    public Long getId() { return id; }
+
+    public String getClientId() { return clientId; }
+
+    public String getClientName() { return clientName; }
+
+    public String getTenantId() { return tenantId; }
+
+    /**
+     * Comma-separated scopes
+     */
+    public String getScopes() { return scopes; }
+
+    public OAuth2Client.ClientStatus getStatus() { return status; }
+
+    public Integer getAccessTokenValiditySeconds() { return accessTokenValiditySeconds; }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getLastUsedAt() { return lastUsedAt; }
+}
@@ -1,31 +1,59 @@
 package com.natwest.platform.auth.repository;
 
 import com.natwest.platform.auth.entity.OAuth2Client;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
-import java.time.Instant;
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OAuth2ClientRepository extends JpaRepository<OAuth2Client, Long> {
 
+    String SUMMARY_COLUMNS = "c.id, c.clientId, c.clientName, c.tenantId, c.scopes, c.status, " +
+                             "c.accessTokenValiditySeconds, c.createdAt, c.lastUsedAt";
+
     Optional<OAuth2Client> findByClientId(String clientId);
 
     List<OAuth2Client> findByTenantId(String tenantId);
 
     List<OAuth2Client> findByStatus(OAuth2Client.ClientStatus status);
 
+    List<OAuth2Client> findByTenantIdAndStatus(String tenantId, OAuth2Client.ClientStatus status);
+
     boolean existsByClientId(String clientId);
 
-    @Modifying
-    @Transactional
-    @Query("UPDATE OAuth2Client c SET c.lastUsedAt = :timestamp WHERE c.clientId = :clientId")
-    void updateLastUsedAt(@Param("clientId") String clientId, @Param("timestamp") Instant timestamp);
+    boolean existsByTenantId(String tenantId);
+
+    /**
+     * Keyset page of client summaries after the given id, in id order
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.natwest.platform.auth.repository.ClientSummary(" + SUMMARY_COLUMNS + ") " +
+           "FROM OAuth2Client c WHERE c.id > :afterId ORDER BY c.id")
+    List<ClientSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Summary of one client, without loading the managed entity
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.natwest.platform.auth.repository.ClientSummary(" + SUMMARY_COLUMNS + ") " +
+           "FROM OAuth2Client c WHERE c.clientId = :clientId")
+    Optional<ClientSummary> findSummaryByClientId(@Param("clientId") String clientId);
+
+    /**
+     * All client summaries in id order, read incrementally; must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.natwest.platform.auth.repository.ClientSummary(" + SUMMARY_COLUMNS + ") " +
+           "FROM OAuth2Client c ORDER BY c.id")
+    Stream<ClientSummary> streamSummaries();
 }
 
@@ -0,0 +1,51 @@
+package com.natwest.platform.auth.service;
+
+import com.natwest.platform.auth.entity.OAuth2Client;
+
+/**
+ * Immutable snapshot of the client fields needed on the token path
+ */
+public final class CachedClient {
+
+    private final String clientId;
+    private final String secretHash;
+    private final String tenantId;
+    private final String scopes;
+    private final ScopeSet allowedScopes;
+    private final Integer accessTokenValiditySeconds;
+    private final OAuth2Client.ClientStatus status;
+
+    public CachedClient(OAuth2Client client, ScopeRegistry scopeRegistry) {
+        this.clientId = client.getClientId();
+        this.secretHash = client.getClientSecret();
+        this.tenantId = client.getTenantId();
+        this.scopes = client.getScopes();
+        this.allowedScopes = scopeRegistry.toScopeSet(client.getScopes());
+        this.accessTokenValiditySeconds = client.getAccessTokenValiditySeconds();
+        this.status = client.getStatus();
+    }
+
+    public String getClientId() { return clientId; }
+
+    /**
+     * BCrypt hash of the client secret
+     */
+    public String getSecretHash() { return secretHash; }
+
+    public String getTenantId() { return tenantId; }
+
+    public String getScopes() { return scopes; }
+
+    /**
+     * Allowed scopes, precomputed as a bitset
+     */
+    public ScopeSet getAllowedScopes() { return allowedScopes; }
+
+    public Integer getAccessTokenValiditySeconds() { return accessTokenValiditySeconds; }
+
+    public OAuth2Client.ClientStatus getStatus() { return status; }
+
+    public boolean isActive() {
+        return status == OAuth2Client.ClientStatus.ACTIVE;
+    }
+}
@@ -0,0 +1,124 @@
+package com.natwest.platform.auth.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Append-only log of changes that replicas must apply to their local state.
+ * Writers append a row after changing the database; ChangeFeedPoller on every
+ * replica (including the writer) reads rows past the last sequence it applied.
+ */
+@Service
+public class ChangeFeed {
+
+    /**
+     * Kinds of change; subject and value depend on the type
+     */
+    public enum Type {
+        /** Client row changed (subject: client id) */
+        CLIENT,
+        /** Client token epoch bumped (subject: client id, value: new epoch) */
+        CLIENT_EPOCH,
+        /** Tenant token epoch bumped (subject: tenant id, value: new epoch) */
+        TENANT_EPOCH,
+        /** Token revoked (subject: jti, value: token exp in epoch seconds) */
+        TOKEN_REVOKED
+    }
+
+    /**
+     * One row of the feed
+     */
+    public static final class Change {
+        private final long seq;
+        private final Type type;
+        private final String subjectId;
+        private final long value;
+
+        Change(long seq, Type type, String subjectId, long value) {
+            this.seq = seq;
+            this.type = type;
+            this.subjectId = subjectId;
+            this.value = value;
+        }
+
+        public long getSeq() { return seq; }
+
+        public Type getType() { return type; }
+
+        public String getSubjectId() { return subjectId; }
+
+        public long getValue() { return value; }
+    }
+
+    private static final String INSERT_SQL =
+            "INSERT INTO change_feed (change_type, subject_id, change_value, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final String SELECT_AFTER_SQL =
+            "SELECT seq, change_type, subject_id, change_value FROM change_feed WHERE seq > ? ORDER BY seq LIMIT ?";
+
+    private static final String LATEST_SEQ_SQL = "SELECT COALESCE(MAX(seq), 0) FROM change_feed";
+
+    private static final String LIVE_REVOCATIONS_SQL =
+            "SELECT seq, change_type, subject_id, change_value FROM change_feed " +
+            "WHERE change_type = 'TOKEN_REVOKED' AND change_value > ?";
+
+    private static final String PRUNE_SQL =
+            "DELETE FROM change_feed WHERE created_at < ? " +
+            "AND (change_type <> 'TOKEN_REVOKED' OR change_value <= ?)";
+
+    private static final RowMapper<Change> CHANGE_MAPPER = (rs, row) -> new Change(
+            rs.getLong("seq"), Type.valueOf(rs.getString("change_type")),
+            rs.getString("subject_id"), rs.getLong("change_value"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Append a change; joins the caller's transaction when there is one
+     */
+    public void publish(Type type, String subjectId, long value) {
+        jdbcTemplate.update(INSERT_SQL, type.name(), subjectId, value, Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Append a change that carries no value
+     */
+    public void publish(Type type, String subjectId) {
+        publish(type, subjectId, 0L);
+    }
+
+    /**
+     * Up to limit changes with a sequence above afterSeq, oldest first
+     */
+    List<Change> readAfter(long afterSeq, int limit) {
+        return jdbcTemplate.query(SELECT_AFTER_SQL, CHANGE_MAPPER, afterSeq, limit);
+    }
+
+    /**
+     * Highest sequence written so far (0 for an empty feed)
+     */
+    long latestSequence() {
+        Long latest = jdbcTemplate.queryForObject(LATEST_SEQ_SQL, Long.class);
+        return latest != null ? latest : 0L;
+    }
+
+    /**
+     * Revocations whose tokens have not yet expired
+     */
+    List<Change> liveRevocations(long nowEpochSeconds) {
+        return jdbcTemplate.query(LIVE_REVOCATIONS_SQL, CHANGE_MAPPER, nowEpochSeconds);
+    }
+
+    /**
+     * Delete changes older than the cutoff, keeping revocations until their tokens expire
+     */
+    int prune(Instant olderThan, long nowEpochSeconds) {
+        return jdbcTemplate.update(PRUNE_SQL, Timestamp.from(olderThan), nowEpochSeconds);
+    }
+}
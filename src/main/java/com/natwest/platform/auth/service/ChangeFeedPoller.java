@@ -0,0 +1,206 @@
+package com.natwest.platform.auth.service;
+
+import com.natwest.platform.auth.service.ChangeFeed.Change;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Applies the shared change feed to this replica's in-memory state: client caches,
+ * token epochs and revoked token ids.
+ *
+ * Each poll reads only rows past the watermark (the highest sequence below which every
+ * row has been applied), so local state trails other replicas by about one poll interval.
+ * Identity values can commit out of order, so a row may appear after higher ones were
+ * read. Rows past such a gap are applied at once, but the watermark waits at the gap
+ * until it fills or gap-timeout-ms passes (a rolled-back insert never fills it).
+ * Applying a change is idempotent, so re-reading a row is harmless.
+ */
+@Service
+public class ChangeFeedPoller {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedPoller.class);
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ClientRegistryCache clientRegistryCache;
+
+    @Autowired
+    private ClientSecretVerifier clientSecretVerifier;
+
+    @Autowired
+    private TokenEpochs tokenEpochs;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${natwest.auth.change-feed.enabled:true}")
+    private boolean enabled;
+
+    @Value("${natwest.auth.change-feed.batch-size:500}")
+    private int batchSize;
+
+    @Value("${natwest.auth.change-feed.gap-timeout-ms:10000}")
+    private long gapTimeoutMs;
+
+    @Value("${natwest.auth.change-feed.retention-seconds:3600}")
+    private long retentionSeconds;
+
+    private long watermark;
+
+    /** Sequences above the watermark that have already been applied */
+    private final TreeSet<Long> appliedAboveWatermark = new TreeSet<>();
+
+    private long gapSeq = -1;
+
+    private long gapSinceMillis;
+
+    private volatile long lastPollMillis;
+
+    @PostConstruct
+    void init() {
+        // Take the watermark first, so anything written while loading is polled again
+        synchronized (this) {
+            watermark = changeFeed.latestSequence();
+            tokenEpochs.reload();
+            loadLiveRevocations();
+            lastPollMillis = System.currentTimeMillis();
+        }
+        Gauge.builder("oauth2.changefeed.staleness.seconds", this,
+                        poller -> (System.currentTimeMillis() - poller.lastPollMillis) / 1000.0)
+                .description("Seconds since the change feed was last read successfully")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Apply changes written since the last poll
+     */
+    @Scheduled(fixedDelayString = "${natwest.auth.change-feed.poll-interval-ms:1000}",
+               initialDelayString = "${natwest.auth.change-feed.poll-interval-ms:1000}")
+    public synchronized void poll() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Change> changes;
+        try {
+            // A replica that missed more than the retention period may have missed pruned rows
+            if (now - lastPollMillis > retentionSeconds * 1000) {
+                resync();
+            }
+            changes = changeFeed.readAfter(watermark, batchSize);
+        } catch (Exception e) {
+            log.warn("Change feed poll failed: {}", e.getMessage());
+            return;
+        }
+
+        for (Change change : changes) {
+            if (appliedAboveWatermark.add(change.getSeq())) {
+                apply(change);
+            }
+        }
+        advanceWatermark(now);
+        lastPollMillis = now;
+    }
+
+    /**
+     * Move the watermark over applied rows, and over gaps that have outlived the timeout
+     */
+    private void advanceWatermark(long now) {
+        while (!appliedAboveWatermark.isEmpty()) {
+            long next = watermark + 1;
+            if (appliedAboveWatermark.first() == next) {
+                appliedAboveWatermark.pollFirst();
+                watermark = next;
+                continue;
+            }
+            // Every sequence up to first() was allocated when the gap was first seen
+            if (gapSeq != next) {
+                gapSeq = next;
+                gapSinceMillis = now;
+            }
+            if (now - gapSinceMillis < gapTimeoutMs) {
+                return;
+            }
+            log.debug("Skipping change feed sequences {} to {}", next, appliedAboveWatermark.first() - 1);
+            watermark = appliedAboveWatermark.first() - 1;
+        }
+    }
+
+    private void apply(Change change) {
+        switch (change.getType()) {
+            case CLIENT:
+                clientRegistryCache.invalidate(change.getSubjectId());
+                clientSecretVerifier.invalidate(change.getSubjectId());
+                break;
+            case CLIENT_EPOCH:
+                tokenEpochs.apply(TokenEpochs.Subject.CLIENT, change.getSubjectId(), change.getValue());
+                break;
+            case TENANT_EPOCH:
+                tokenEpochs.apply(TokenEpochs.Subject.TENANT, change.getSubjectId(), change.getValue());
+                break;
+            case TOKEN_REVOKED:
+                revocationList.revoke(change.getSubjectId(), change.getValue());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Rebuild local state from the database instead of the feed
+     */
+    private void resync() {
+        log.warn("Change feed not read for over {} seconds; resynchronising local state", retentionSeconds);
+        watermark = changeFeed.latestSequence();
+        appliedAboveWatermark.clear();
+        clientRegistryCache.invalidateAll();
+        clientSecretVerifier.invalidateAll();
+        tokenEpochs.reload();
+        loadLiveRevocations();
+    }
+
+    private void loadLiveRevocations() {
+        List<Change> revocations = changeFeed.liveRevocations(Instant.now().getEpochSecond());
+        for (Change revocation : revocations) {
+            revocationList.revoke(revocation.getSubjectId(), revocation.getValue());
+        }
+        if (!revocations.isEmpty()) {
+            log.info("Loaded {} live token revocations from the change feed", revocations.size());
+        }
+    }
+
+    /**
+     * Drop feed rows every replica has had time to apply; revocations stay until their tokens expire
+     */
+    @Scheduled(fixedDelayString = "${natwest.auth.change-feed.prune-interval-ms:300000}")
+    public void prune() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            int pruned = changeFeed.prune(now.minusSeconds(retentionSeconds), now.getEpochSecond());
+            if (pruned > 0) {
+                log.debug("Pruned {} change feed rows", pruned);
+            }
+        } catch (Exception e) {
+            log.warn("Change feed prune failed: {}", e.getMessage());
+        }
+    }
+}
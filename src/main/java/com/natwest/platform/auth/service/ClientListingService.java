@@ -0,0 +1,183 @@
+package com.natwest.platform.auth.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.natwest.platform.auth.repository.ClientSummary;
+import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keyset-paginated and streaming access to registered clients.
+ * Both paths read ClientSummary projections, so no entities (or secrets) are loaded
+ * and neither path holds more than one page in memory.
+ */
+@Service
+public class ClientListingService {
+
+    @Autowired
+    private OAuth2ClientRepository clientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${natwest.auth.client-listing.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${natwest.auth.client-listing.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${natwest.auth.client-listing.total-max-age-ms:60000}")
+    private long totalMaxAgeMs;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private volatile CachedTotal cachedTotal;
+
+    /**
+     * A client count and when it was taken
+     */
+    private static final class CachedTotal {
+        private final long count;
+        private final long countedAtNanos;
+
+        private CachedTotal(long count, long countedAtNanos) {
+            this.count = count;
+            this.countedAtNanos = countedAtNanos;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * One page of clients
+     */
+    public static final class ClientPage {
+        private final List<ClientSummary> clients;
+        private final String nextCursor;
+        private final long approximateTotal;
+
+        private ClientPage(List<ClientSummary> clients, String nextCursor, long approximateTotal) {
+            this.clients = clients;
+            this.nextCursor = nextCursor;
+            this.approximateTotal = approximateTotal;
+        }
+
+        public List<ClientSummary> getClients() { return clients; }
+
+        /**
+         * Cursor for the following page, or null on the last page
+         */
+        public String getNextCursor() { return nextCursor; }
+
+        /**
+         * Registered clients as of a count at most total-max-age-ms old. Counting on every page
+         * would scan the table, so clients registered or deleted since the count are not reflected.
+         */
+        public long getApproximateTotal() { return approximateTotal; }
+    }
+
+    /**
+     * Clients after the given cursor (null for the first page); limit is capped at the maximum page size
+     */
+    public ClientPage page(String cursor, Integer limit) {
+        long afterId = parseCursor(cursor);
+        int size = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        // Fetch one extra row to learn whether another page follows
+        List<ClientSummary> rows = clientRepository.findSummariesAfter(afterId, PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new ClientPage(rows, null, approximateTotal());
+        }
+        List<ClientSummary> page = rows.subList(0, size);
+        return new ClientPage(page, String.valueOf(page.get(size - 1).getId()), approximateTotal());
+    }
+
+    /**
+     * Cached client count, recounted by one caller once it is older than total-max-age-ms
+     */
+    private long approximateTotal() {
+        CachedTotal total = cachedTotal;
+        long now = System.nanoTime();
+        if (total != null && now - total.countedAtNanos < totalMaxAgeMs * 1_000_000L) {
+            return total.count;
+        }
+        synchronized (this) {
+            total = cachedTotal;
+            if (total == null || now - total.countedAtNanos >= totalMaxAgeMs * 1_000_000L) {
+                total = new CachedTotal(clientRepository.count(), System.nanoTime());
+                cachedTotal = total;
+            }
+            return total.count;
+        }
+    }
+
+    /**
+     * Write every client as newline-delimited JSON, one row at a time as it is read
+     */
+    public void exportNdjson(OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ClientSummary> clients = clientRepository.streamSummaries();
+                 JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                json.setRootValueSeparator(null);
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                Iterator<ClientSummary> rows = clients.iterator();
+                while (rows.hasNext()) {
+                    writeClient(json, rows.next());
+                    json.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void writeClient(JsonGenerator json, ClientSummary client) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("clientId", client.getClientId());
+        json.writeStringField("clientName", client.getClientName());
+        json.writeStringField("tenantId", client.getTenantId());
+        json.writeArrayFieldStart("scopes");
+        if (client.getScopes() != null) {
+            for (String scope : client.getScopes().split(",")) {
+                json.writeString(scope);
+            }
+        }
+        json.writeEndArray();
+        json.writeStringField("status", client.getStatus().toString());
+        json.writeStringField("createdAt", client.getCreatedAt().toString());
+        json.writeStringField("lastUsedAt", client.getLastUsedAt() != null ? client.getLastUsedAt().toString() : null);
+        json.writeEndObject();
+    }
+
+    private static long parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.natwest.platform.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.natwest.platform.auth.entity.OAuth2Client;
+import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded in-memory registry of clients in front of OAuth2ClientRepository
+ */
+@Service
+public class ClientRegistryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientRegistryCache.class);
+
+    @Autowired
+    private OAuth2ClientRepository clientRepository;
+
+    @Autowired
+    private ScopeRegistry scopeRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${natwest.auth.client-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${natwest.auth.client-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${natwest.auth.client-cache.preload:true}")
+    private boolean preload;
+
+    private Cache<String, CachedClient> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "oauth2.clients");
+    }
+
+    /**
+     * Preload active clients once sample data has been created
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadActiveClients() {
+        if (!preload) {
+            return;
+        }
+        List<OAuth2Client> clients = clientRepository.findByStatus(OAuth2Client.ClientStatus.ACTIVE);
+        int loaded = 0;
+        for (OAuth2Client client : clients) {
+            if (loaded >= maximumSize) {
+                break;
+            }
+            cache.put(client.getClientId(), new CachedClient(client, scopeRegistry));
+            loaded++;
+        }
+        log.info("Preloaded {} active clients into client registry cache", loaded);
+    }
+
+    /**
+     * Find client by ID, loading from the database on a miss
+     */
+    public Optional<CachedClient> findByClientId(String clientId) {
+        if (clientId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(clientId, id ->
+                clientRepository.findByClientId(id)
+                        .map(client -> new CachedClient(client, scopeRegistry))
+                        .orElse(null)));
+    }
+
+    /**
+     * Drop a client so the next lookup reads the current database state
+     */
+    public void invalidate(String clientId) {
+        cache.invalidate(clientId);
+    }
+
+    /**
+     * Drop every cached client
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
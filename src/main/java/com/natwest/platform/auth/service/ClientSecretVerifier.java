@@ -0,0 +1,137 @@
+package com.natwest.platform.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Verifies client secrets against their BCrypt hashes, caching recent successes.
+ * Cache keys are an HMAC of the presented secret under a per-process key, so
+ * plaintext secrets are never held in memory beyond the request.
+ */
+@Service
+public class ClientSecretVerifier {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${natwest.auth.client-secret-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${natwest.auth.client-secret-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private SecretKeySpec cacheKey;
+
+    private ThreadLocal<Mac> mac;
+
+    private Cache<String, VerifiedCredential> verified;
+
+    /**
+     * A successful verification, tied to the hash it was checked against
+     */
+    private static final class VerifiedCredential {
+        private final String clientId;
+        private final String secretHash;
+
+        private VerifiedCredential(String clientId, String secretHash) {
+            this.clientId = clientId;
+            this.secretHash = secretHash;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        cacheKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        mac = ThreadLocal.withInitial(this::newMac);
+
+        verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "oauth2.client.secrets");
+    }
+
+    /**
+     * Check a presented secret; only the first success per window pays the BCrypt cost
+     */
+    public boolean matches(CachedClient client, String presentedSecret) {
+        if (presentedSecret == null || client.getSecretHash() == null) {
+            return false;
+        }
+
+        String key = cacheKey(client.getClientId(), presentedSecret);
+        VerifiedCredential credential = verified.getIfPresent(key);
+        // A changed hash means the secret was rotated since this entry was cached
+        if (credential != null && credential.secretHash.equals(client.getSecretHash())) {
+            return true;
+        }
+
+        if (!passwordEncoder.matches(presentedSecret, client.getSecretHash())) {
+            return false;
+        }
+        verified.put(key, new VerifiedCredential(client.getClientId(), client.getSecretHash()));
+        return true;
+    }
+
+    /**
+     * Forget every cached verification for a client (secret change or deactivation)
+     */
+    public void invalidate(String clientId) {
+        verified.asMap().values().removeIf(credential -> credential.clientId.equals(clientId));
+    }
+
+    /**
+     * Forget every cached verification
+     */
+    public void invalidateAll() {
+        verified.invalidateAll();
+    }
+
+    /**
+     * Keyed HMAC of a client's presented credentials; identifies them without holding the secret
+     */
+    public String credentialKey(String clientId, String presentedSecret) {
+        return cacheKey(clientId, presentedSecret);
+    }
+
+    private String cacheKey(String clientId, String presentedSecret) {
+        Mac hmac = mac.get();
+        hmac.update(clientId.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        byte[] digest = hmac.doFinal(presentedSecret.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
+            hmac.init(cacheKey);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+        }
+    }
+}
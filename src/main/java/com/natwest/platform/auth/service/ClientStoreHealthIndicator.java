@@ -0,0 +1,162 @@
+package com.natwest.platform.auth.service;
+
+import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Client store health, served from a snapshot refreshed in the background.
+ * Probes read the snapshot in O(1); the database check is a connection validity
+ * test, and the client count is only refreshed on a much slower interval.
+ */
+@Component
+public class ClientStoreHealthIndicator implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientStoreHealthIndicator.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private OAuth2ClientRepository clientRepository;
+
+    @Value("${natwest.auth.health.validation-timeout-seconds:2}")
+    private int validationTimeoutSeconds;
+
+    @Value("${natwest.auth.health.refresh-interval-ms:10000}")
+    private long refreshIntervalMs;
+
+    @Value("${natwest.auth.health.client-count-interval-ms:60000}")
+    private long clientCountIntervalMs;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Result of the most recent background check
+     */
+    public static final class Snapshot {
+        private final boolean databaseUp;
+        private final String error;
+        private final Long totalClients;
+        private final Instant checkedAt;
+        private final Instant countedAt;
+
+        private Snapshot(boolean databaseUp, String error, Long totalClients, Instant checkedAt, Instant countedAt) {
+            this.databaseUp = databaseUp;
+            this.error = error;
+            this.totalClients = totalClients;
+            this.checkedAt = checkedAt;
+            this.countedAt = countedAt;
+        }
+
+        public boolean isDatabaseUp() { return databaseUp; }
+
+        public String getError() { return error; }
+
+        /**
+         * Client count as of countedAt, or null if it has never been counted
+         */
+        public Long getTotalClients() { return totalClients; }
+
+        public Instant getCheckedAt() { return checkedAt; }
+
+        public Instant getCountedAt() { return countedAt; }
+    }
+
+    @PostConstruct
+    void init() {
+        refresh(true);
+    }
+
+    /**
+     * Recount once startup data (e.g. sample clients) is in place
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshOnReady() {
+        refresh(true);
+    }
+
+    /**
+     * Re-check the database and, when due, the client count
+     */
+    @Scheduled(fixedDelayString = "${natwest.auth.health.refresh-interval-ms:10000}",
+               initialDelayString = "${natwest.auth.health.refresh-interval-ms:10000}")
+    public void refresh() {
+        refresh(false);
+    }
+
+    private void refresh(boolean forceCount) {
+        Snapshot previous = snapshot;
+        Instant now = Instant.now();
+        boolean up;
+        String error = null;
+        try (Connection connection = dataSource.getConnection()) {
+            up = connection.isValid(validationTimeoutSeconds);
+            if (!up) {
+                error = "Connection validation failed";
+            }
+        } catch (Exception e) {
+            up = false;
+            error = e.getMessage();
+        }
+
+        Long totalClients = previous != null ? previous.totalClients : null;
+        Instant countedAt = previous != null ? previous.countedAt : null;
+        boolean countDue = forceCount || countedAt == null
+                || Duration.between(countedAt, now).toMillis() >= clientCountIntervalMs;
+        if (up && countDue) {
+            try {
+                totalClients = clientRepository.count();
+                countedAt = now;
+            } catch (Exception e) {
+                log.warn("Client count for health snapshot failed: {}", e.getMessage());
+            }
+        }
+
+        if (previous != null && previous.databaseUp != up) {
+            log.warn("Client store database is now {}", up ? "UP" : "DOWN");
+        }
+        snapshot = new Snapshot(up, error, totalClients, now, countedAt);
+    }
+
+    /**
+     * Latest snapshot; never touches the database
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public Health health() {
+        Snapshot current = snapshot;
+        Health.Builder builder = current.databaseUp ? Health.up() : Health.down();
+        // A snapshot that stopped refreshing cannot vouch for the database
+        long ageMs = Duration.between(current.checkedAt, Instant.now()).toMillis();
+        if (ageMs > refreshIntervalMs * 3) {
+            builder = Health.down().withDetail("reason", "Health snapshot is stale");
+        }
+        builder.withDetail("database", current.databaseUp ? "UP" : "DOWN")
+               .withDetail("checked_at", current.checkedAt.toString());
+        if (current.totalClients != null) {
+            builder.withDetail("total_clients", current.totalClients);
+        }
+        if (current.error != null) {
+            builder.withDetail("error", current.error);
+        }
+        return builder.build();
+    }
+}
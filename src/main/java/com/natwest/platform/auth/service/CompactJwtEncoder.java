@@ -0,0 +1,296 @@
+package com.natwest.platform.auth.service;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Arrays;
+
+/**
+ * Specialised JWS encoder for the fixed access token claim set.
+ * Writes the payload straight into per-thread buffers and signs with per-thread
+ * Mac/Signature instances. Output is byte-for-byte what the jjwt builder produces
+ * for the same claims (header {"kid","alg"}, claims in jjwt's serialisation order).
+ */
+final class CompactJwtEncoder {
+
+    private static final byte[] BASE64_URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Large enough for RSA-4096; HMAC and P-256 ECDSA signatures are far smaller
+     */
+    private static final int MAX_SIGNATURE_BYTES = 512;
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private volatile EncodedHeader header;
+
+    /**
+     * Per-thread scratch space and signer, reused across tokens
+     */
+    private static final class Buffers {
+        private byte[] json = new byte[512];
+        private byte[] token = new byte[1024];
+        private byte[] signature = new byte[MAX_SIGNATURE_BYTES];
+        private JwtSigningKey signerKey;
+        private Mac mac;
+        private Signature signer;
+    }
+
+    /**
+     * Base64url header for one signing key, computed once per key
+     */
+    private static final class EncodedHeader {
+        private final JwtSigningKey key;
+        private final byte[] bytes;
+
+        private EncodedHeader(JwtSigningKey key) {
+            this.key = key;
+            String json = "{\"kid\":" + quote(key.getKid()) + ",\"alg\":\"" + key.getAlgorithm().getValue() + "\"}";
+            byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+            this.bytes = new byte[base64Length(raw.length)];
+            base64Url(raw, raw.length, bytes, 0);
+        }
+    }
+
+    /**
+     * Encode and sign an access token
+     */
+    String encode(JwtSigningKey key, String clientId, String tenantId, String scope,
+                  String issuer, long issuedAtMillis, long expiresAtMillis, String tokenId,
+                  long clientEpoch, long tenantEpoch) {
+        Buffers buf = buffers.get();
+
+        // Payload in jjwt's order: the claims map first, then the registered claims
+        int p = 0;
+        buf.json[p++] = '{';
+        p = putString(buf, p, "tenant_id", tenantId);
+        p = putString(buf, p, "scope", scope);
+        p = putString(buf, p, "token_type", "Bearer");
+        p = putString(buf, p, "client_id", clientId);
+        p = putString(buf, p, "sub", clientId);
+        p = putString(buf, p, "iss", issuer);
+        p = putLong(buf, p, "iat", issuedAtMillis / 1000);
+        p = putLong(buf, p, "exp", expiresAtMillis / 1000);
+        p = putString(buf, p, "jti", tokenId);
+        // Epochs are omitted while still 0, which is every client and tenant never mass-revoked
+        if (clientEpoch != 0) {
+            p = putLong(buf, p, "client_epoch", clientEpoch);
+        }
+        if (tenantEpoch != 0) {
+            p = putLong(buf, p, "tenant_epoch", tenantEpoch);
+        }
+        ensureJson(buf, p + 1);
+        buf.json[p++] = '}';
+
+        byte[] headerBytes = headerFor(key);
+        ensureToken(buf, headerBytes.length + 1 + base64Length(p) + 1 + base64Length(MAX_SIGNATURE_BYTES));
+
+        int t = headerBytes.length;
+        System.arraycopy(headerBytes, 0, buf.token, 0, t);
+        buf.token[t++] = '.';
+        t = base64Url(buf.json, p, buf.token, t);
+        int signingInputLength = t;
+
+        int sigLength = sign(buf, key, signingInputLength);
+        buf.token[t++] = '.';
+        t = base64Url(buf.signature, sigLength, buf.token, t);
+
+        return new String(buf.token, 0, t, StandardCharsets.ISO_8859_1);
+    }
+
+    private byte[] headerFor(JwtSigningKey key) {
+        EncodedHeader current = header;
+        if (current == null || current.key != key) {
+            current = new EncodedHeader(key);
+            header = current;
+        }
+        return current.bytes;
+    }
+
+    private int sign(Buffers buf, JwtSigningKey key, int length) {
+        try {
+            if (buf.signerKey != key) {
+                initSigner(buf, key);
+            }
+            if (buf.mac != null) {
+                buf.mac.update(buf.token, 0, length);
+                int macLength = buf.mac.getMacLength();
+                buf.mac.doFinal(buf.signature, 0);
+                return macLength;
+            }
+            buf.signer.update(buf.token, 0, length);
+            return buf.signer.sign(buf.signature, 0, buf.signature.length);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Token signing failed", e);
+        }
+    }
+
+    private static void initSigner(Buffers buf, JwtSigningKey key) throws GeneralSecurityException {
+        SignatureAlgorithm algorithm = key.getAlgorithm();
+        buf.mac = null;
+        buf.signer = null;
+        if (algorithm.isHmac()) {
+            buf.mac = Mac.getInstance(algorithm.getJcaName());
+            buf.mac.init(key.getSigningKey());
+        } else {
+            // P1363 output is the raw R||S concatenation that JWS requires for ECDSA
+            String jcaName = algorithm.isEllipticCurve() ? algorithm.getJcaName() + "inP1363Format" : algorithm.getJcaName();
+            buf.signer = Signature.getInstance(jcaName);
+            buf.signer.initSign((PrivateKey) key.getSigningKey());
+        }
+        buf.signerKey = key;
+    }
+
+    private static int putString(Buffers buf, int p, String name, String value) {
+        if (value == null) {
+            return p;
+        }
+        p = putName(buf, p, name);
+        ensureJson(buf, p + value.length() * 6 + 2);
+        byte[] out = buf.json;
+        out[p++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                out[p++] = (byte) c;
+            } else if (c == '"' || c == '\\') {
+                out[p++] = '\\';
+                out[p++] = (byte) c;
+            } else if (c < 0x20) {
+                p = putControl(out, p, c);
+            } else if (c < 0x800) {
+                out[p++] = (byte) (0xc0 | (c >> 6));
+                out[p++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Jackson escapes surrogate halves rather than emitting 4-byte UTF-8
+                p = putUnicodeEscape(out, p, c);
+            } else {
+                out[p++] = (byte) (0xe0 | (c >> 12));
+                out[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                out[p++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        out[p++] = '"';
+        return p;
+    }
+
+    private static int putControl(byte[] out, int p, char c) {
+        out[p++] = '\\';
+        switch (c) {
+            case '\b': out[p++] = 'b'; break;
+            case '\f': out[p++] = 'f'; break;
+            case '\n': out[p++] = 'n'; break;
+            case '\r': out[p++] = 'r'; break;
+            case '\t': out[p++] = 't'; break;
+            default:
+                return putUnicodeEscape(out, p - 1, c);
+        }
+        return p;
+    }
+
+    private static int putUnicodeEscape(byte[] out, int p, char c) {
+        out[p++] = '\\';
+        out[p++] = 'u';
+        out[p++] = HEX[(c >> 12) & 0xf];
+        out[p++] = HEX[(c >> 8) & 0xf];
+        out[p++] = HEX[(c >> 4) & 0xf];
+        out[p++] = HEX[c & 0xf];
+        return p;
+    }
+
+    private static int putLong(Buffers buf, int p, String name, long value) {
+        p = putName(buf, p, name);
+        ensureJson(buf, p + 20);
+        if (value == 0) {
+            buf.json[p++] = '0';
+            return p;
+        }
+        int start = p;
+        long v = value;
+        if (v < 0) {
+            buf.json[p++] = '-';
+            start = p;
+            v = -v;
+        }
+        while (v > 0) {
+            buf.json[p++] = (byte) ('0' + (v % 10));
+            v /= 10;
+        }
+        for (int i = start, j = p - 1; i < j; i++, j--) {
+            byte tmp = buf.json[i];
+            buf.json[i] = buf.json[j];
+            buf.json[j] = tmp;
+        }
+        return p;
+    }
+
+    private static int putName(Buffers buf, int p, String name) {
+        ensureJson(buf, p + name.length() + 4);
+        byte[] out = buf.json;
+        if (out[p - 1] != '{') {
+            out[p++] = ',';
+        }
+        out[p++] = '"';
+        for (int i = 0; i < name.length(); i++) {
+            out[p++] = (byte) name.charAt(i);
+        }
+        out[p++] = '"';
+        out[p++] = ':';
+        return p;
+    }
+
+    private static void ensureJson(Buffers buf, int capacity) {
+        if (capacity > buf.json.length) {
+            buf.json = Arrays.copyOf(buf.json, Math.max(capacity, buf.json.length * 2));
+        }
+    }
+
+    private static void ensureToken(Buffers buf, int capacity) {
+        if (capacity > buf.token.length) {
+            buf.token = Arrays.copyOf(buf.token, Math.max(capacity, buf.token.length * 2));
+        }
+    }
+
+    private static int base64Length(int length) {
+        return (length * 4 + 2) / 3;
+    }
+
+    /**
+     * Unpadded base64url encoding of src[0, length) into dst at offset
+     */
+    private static int base64Url(byte[] src, int length, byte[] dst, int offset) {
+        int d = offset;
+        int s = 0;
+        int whole = length - length % 3;
+        while (s < whole) {
+            int bits = (src[s++] & 0xff) << 16 | (src[s++] & 0xff) << 8 | (src[s++] & 0xff);
+            dst[d++] = BASE64_URL[(bits >>> 18) & 0x3f];
+            dst[d++] = BASE64_URL[(bits >>> 12) & 0x3f];
+            dst[d++] = BASE64_URL[(bits >>> 6) & 0x3f];
+            dst[d++] = BASE64_URL[bits & 0x3f];
+        }
+        int remaining = length - whole;
+        if (remaining == 1) {
+            int bits = (src[s] & 0xff) << 16;
+            dst[d++] = BASE64_URL[(bits >>> 18) & 0x3f];
+            dst[d++] = BASE64_URL[(bits >>> 12) & 0x3f];
+        } else if (remaining == 2) {
+            int bits = (src[s] & 0xff) << 16 | (src[s + 1] & 0xff) << 8;
+            dst[d++] = BASE64_URL[(bits >>> 18) & 0x3f];
+            dst[d++] = BASE64_URL[(bits >>> 12) & 0x3f];
+            dst[d++] = BASE64_URL[(bits >>> 6) & 0x3f];
+        }
+        return d;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,55 @@
+package com.natwest.platform.auth.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size count-min sketch over string keys; estimates never undercount.
+ * Counters are updated lock-free, so concurrent writers only contend on shared cells.
+ */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int widthMask;
+    private final AtomicLongArray counters;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of independent rows
+     */
+    CountMinSketch(int width, int depth) {
+        int roundedWidth = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.depth = depth;
+        this.widthMask = roundedWidth - 1;
+        this.counters = new AtomicLongArray(roundedWidth * depth);
+    }
+
+    /**
+     * Count one occurrence and return the updated estimate
+     */
+    long add(String key) {
+        long h1 = BloomFilter.hash(key);
+        long h2 = BloomFilter.mix(h1) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(cell(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    long estimate(String key) {
+        long h1 = BloomFilter.hash(key);
+        long h2 = BloomFilter.mix(h1) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(cell(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Row index by double hashing the key's 64-bit hash, as BloomFilter derives its probes
+     */
+    private int cell(int row, long h1, long h2) {
+        return row * (widthMask + 1) + (int) ((h1 + row * h2) & widthMask);
+    }
+}
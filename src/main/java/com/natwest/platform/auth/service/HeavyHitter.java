@@ -0,0 +1,31 @@
+package com.natwest.platform.auth.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One heavy-hitter entry: a tenant or client and its estimated request count
+ */
+public final class HeavyHitter {
+
+    private final String key;
+    private final long requests;
+    private final double ratePerSecond;
+
+    HeavyHitter(String key, long requests, double ratePerSecond) {
+        this.key = key;
+        this.requests = requests;
+        this.ratePerSecond = Math.round(ratePerSecond * 1000) / 1000.0;
+    }
+
+    @JsonProperty("id")
+    public String getKey() { return key; }
+
+    /**
+     * Estimated requests in the window (count-min estimates may overcount slightly)
+     */
+    @JsonProperty("requests")
+    public long getRequests() { return requests; }
+
+    @JsonProperty("rate_per_second")
+    public double getRatePerSecond() { return ratePerSecond; }
+}
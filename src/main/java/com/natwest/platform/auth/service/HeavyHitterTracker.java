@@ -0,0 +1,159 @@
+package com.natwest.platform.auth.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Approximate top-K keys over a sliding window of two fixed-length intervals.
+ * Each interval holds a count-min sketch plus at most K candidate keys, so memory
+ * is fixed regardless of how many distinct keys are seen.
+ */
+final class HeavyHitterTracker {
+
+    private final int capacity;
+    private final int sketchWidth;
+    private final int sketchDepth;
+    private final long windowNanos;
+
+    private volatile Interval current;
+    private volatile Interval previous;
+
+    /**
+     * One interval of counts
+     */
+    private static final class Interval {
+        private final long startNanos;
+        private final CountMinSketch sketch;
+        private final ConcurrentHashMap<String, Long> candidates;
+        private final LongAdder total = new LongAdder();
+        private volatile long floor;
+
+        private Interval(long startNanos, int width, int depth, int capacity) {
+            this.startNanos = startNanos;
+            this.sketch = new CountMinSketch(width, depth);
+            this.candidates = new ConcurrentHashMap<>(capacity * 2);
+        }
+    }
+
+    HeavyHitterTracker(int capacity, int sketchWidth, int sketchDepth, long windowNanos) {
+        this.capacity = capacity;
+        this.sketchWidth = sketchWidth;
+        this.sketchDepth = sketchDepth;
+        this.windowNanos = windowNanos;
+        this.current = new Interval(System.nanoTime(), sketchWidth, sketchDepth, capacity);
+    }
+
+    void record(String key) {
+        if (key == null) {
+            return;
+        }
+        Interval interval = rotateIfDue(System.nanoTime());
+        interval.total.increment();
+        long estimate = interval.sketch.add(key);
+
+        // Known candidates just track their estimate; new keys need to beat the floor
+        if (interval.candidates.replace(key, estimate) != null) {
+            return;
+        }
+        if (interval.candidates.size() < capacity || estimate > interval.floor) {
+            admit(interval, key, estimate);
+        }
+    }
+
+    /**
+     * Heaviest keys over the previous and current interval, by estimated count
+     */
+    List<HeavyHitter> top(int limit) {
+        long now = System.nanoTime();
+        Interval cur = rotateIfDue(now);
+        Interval prev = previous;
+
+        Set<String> keys = new HashSet<>(cur.candidates.keySet());
+        if (prev != null) {
+            keys.addAll(prev.candidates.keySet());
+        }
+        double seconds = coveredNanos(now, cur, prev) / 1e9;
+
+        List<HeavyHitter> hitters = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            long count = cur.sketch.estimate(key) + (prev != null ? prev.sketch.estimate(key) : 0);
+            hitters.add(new HeavyHitter(key, count, seconds > 0 ? count / seconds : 0));
+        }
+        hitters.sort(Comparator.comparingLong(HeavyHitter::getRequests).reversed());
+        return hitters.size() > limit ? new ArrayList<>(hitters.subList(0, limit)) : hitters;
+    }
+
+    /**
+     * Exact request count over the same span as top()
+     */
+    long total() {
+        Interval cur = rotateIfDue(System.nanoTime());
+        Interval prev = previous;
+        return cur.total.sum() + (prev != null ? prev.total.sum() : 0);
+    }
+
+    /**
+     * Seconds covered by top() and total()
+     */
+    double windowSeconds() {
+        long now = System.nanoTime();
+        Interval cur = rotateIfDue(now);
+        return coveredNanos(now, cur, previous) / 1e9;
+    }
+
+    private long coveredNanos(long now, Interval cur, Interval prev) {
+        return (now - cur.startNanos) + (prev != null ? windowNanos : 0);
+    }
+
+    private synchronized void admit(Interval interval, String key, long estimate) {
+        Map<String, Long> candidates = interval.candidates;
+        if (candidates.size() >= capacity) {
+            Map.Entry<String, Long> lightest = lightest(candidates);
+            if (lightest == null || estimate <= lightest.getValue()) {
+                interval.floor = lightest != null ? lightest.getValue() : 0;
+                return;
+            }
+            candidates.remove(lightest.getKey());
+        }
+        candidates.put(key, estimate);
+        if (candidates.size() >= capacity) {
+            Map.Entry<String, Long> lightest = lightest(candidates);
+            interval.floor = lightest != null ? lightest.getValue() : 0;
+        }
+    }
+
+    private static Map.Entry<String, Long> lightest(Map<String, Long> candidates) {
+        Map.Entry<String, Long> lightest = null;
+        for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+            if (lightest == null || entry.getValue() < lightest.getValue()) {
+                lightest = entry;
+            }
+        }
+        return lightest;
+    }
+
+    private Interval rotateIfDue(long now) {
+        Interval interval = current;
+        if (now - interval.startNanos < windowNanos) {
+            return interval;
+        }
+        synchronized (this) {
+            interval = current;
+            long elapsed = now - interval.startNanos;
+            if (elapsed >= windowNanos) {
+                // An interval older than one window no longer overlaps the sliding window
+                previous = elapsed < 2 * windowNanos ? interval : null;
+                long start = elapsed < 2 * windowNanos ? interval.startNanos + windowNanos : now;
+                interval = new Interval(start, sketchWidth, sketchDepth, capacity);
+                current = interval;
+            }
+            return interval;
+        }
+    }
+}
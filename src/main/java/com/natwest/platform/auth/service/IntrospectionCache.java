@@ -0,0 +1,125 @@
+package com.natwest.platform.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache of verified introspection results keyed by a SHA-256 digest of the token.
+ * Entries never outlive the token's own exp claim.
+ */
+@Service
+public class IntrospectionCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${natwest.auth.introspection-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${natwest.auth.introspection-cache.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${natwest.auth.introspection-cache.max-ttl-seconds:3600}")
+    private long maxTtlSeconds;
+
+    private Cache<String, TokenIntrospection> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(TimeUnit.SECONDS.toNanos(maxTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "oauth2.introspection");
+        Gauge.builder("oauth2.introspection.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Fraction of introspection requests served without signature verification")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the cached result for a token, verifying it on a miss.
+     * Only active results are cached; failures are re-verified on every call.
+     */
+    public TokenIntrospection get(String token, Function<String, TokenIntrospection> verifier) {
+        if (!enabled || token == null) {
+            return verifier.apply(token);
+        }
+
+        String key = digest(token);
+        TokenIntrospection cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        TokenIntrospection result = verifier.apply(token);
+        if (result.isActive() && result.getExpiresAt() != null) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Drop every cached result, e.g. after a verification key is retired
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    /**
+     * Expire each entry at the token's exp, capped by the configured maximum TTL
+     */
+    private static final class TokenExpiry implements Expiry<String, TokenIntrospection> {
+
+        private final long maxTtlNanos;
+
+        private TokenExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, TokenIntrospection value, long currentTime) {
+            long remainingMillis = value.getExpiresAt() * 1000 - System.currentTimeMillis();
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+            return Math.min(remainingNanos, maxTtlNanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenIntrospection value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenIntrospection value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
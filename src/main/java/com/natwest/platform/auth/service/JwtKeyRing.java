@@ -0,0 +1,275 @@
+package com.natwest.platform.auth.service;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.security.Key;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ring of signing keys indexed by kid.
+ *
+ * The configured key is the first key; rotated keys are written to the signing_keys table,
+ * so every replica loads the same key material. A rotated key is written publish-ahead-seconds
+ * before it starts signing, long enough for resource servers holding a cached JWKS to fetch
+ * it, and its predecessor keeps verifying for overlap-seconds after the switch. Activation
+ * times sit on a fixed grid of the rotation interval, so replicas rotating at the same time
+ * compute the same kid and only one insert succeeds.
+ */
+@Service
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private static final String SELECT_SQL =
+            "SELECT kid, algorithm, private_key, public_key, activate_at FROM signing_keys";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO signing_keys (kid, algorithm, private_key, public_key, activate_at, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_SQL = "DELETE FROM signing_keys WHERE kid = ?";
+
+    @Autowired
+    private IntrospectionCache introspectionCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${natwest.auth.jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${natwest.auth.jwt.algorithm:HS256}")
+    private SignatureAlgorithm algorithm;
+
+    @Value("${natwest.auth.jwt.key-id:natwest-demo-key-1}")
+    private String keyId;
+
+    @Value("${natwest.auth.jwt.private-key:}")
+    private String privateKey;
+
+    @Value("${natwest.auth.jwt.public-key:}")
+    private String publicKey;
+
+    @Value("${natwest.auth.jwt.ephemeral-key:false}")
+    private boolean ephemeralKeyAllowed;
+
+    @Value("${natwest.auth.jwt.jwks-max-age-seconds:300}")
+    private long jwksMaxAgeSeconds;
+
+    @Value("${natwest.auth.jwt.rotation.interval-seconds:0}")
+    private long rotationIntervalSeconds;
+
+    @Value("${natwest.auth.jwt.rotation.overlap-seconds:3900}")
+    private long overlapSeconds;
+
+    @Value("${natwest.auth.jwt.rotation.publish-ahead-seconds:600}")
+    private long publishAheadSeconds;
+
+    @Value("${natwest.auth.jwt.rotation.check-interval-ms:60000}")
+    private long checkIntervalMs;
+
+    private JwtSigningKey configured;
+
+    /**
+     * Verification keys by kid: upcoming, current and retiring keys
+     */
+    private volatile Map<String, JwtSigningKey> keys = Collections.emptyMap();
+
+    private volatile JwtSigningKey current;
+
+    /**
+     * A key and the time it starts signing
+     */
+    private static final class RingEntry {
+        private final JwtSigningKey key;
+        private final Instant activateAt;
+
+        private RingEntry(JwtSigningKey key, Instant activateAt) {
+            this.key = key;
+            this.activateAt = activateAt;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (rotationIntervalSeconds > 0) {
+            validateRotation();
+        }
+        configured = createConfiguredKey();
+        refresh(Instant.now());
+    }
+
+    /**
+     * A rotated key must be in every cached JWKS before it signs, and replicas see it one check late at worst
+     */
+    private void validateRotation() {
+        long required = jwksMaxAgeSeconds + (checkIntervalMs + 999) / 1000;
+        if (publishAheadSeconds < required) {
+            throw new IllegalStateException("natwest.auth.jwt.rotation.publish-ahead-seconds must be at least "
+                    + required + " (jwks-max-age-seconds plus check-interval-ms), got " + publishAheadSeconds);
+        }
+        if (rotationIntervalSeconds <= publishAheadSeconds) {
+            throw new IllegalStateException("natwest.auth.jwt.rotation.interval-seconds must exceed"
+                    + " publish-ahead-seconds (" + publishAheadSeconds + "), got " + rotationIntervalSeconds);
+        }
+    }
+
+    private JwtSigningKey createConfiguredKey() {
+        if (algorithm.isHmac()) {
+            return JwtSigningKey.hmac(keyId, jwtSecret);
+        }
+        if (!privateKey.trim().isEmpty()) {
+            return JwtSigningKey.fromEncoded(keyId, algorithm, privateKey, publicKey);
+        }
+        // Replicas that do not share a configured key cannot verify each other's tokens
+        if (!ephemeralKeyAllowed) {
+            throw new IllegalStateException("natwest.auth.jwt.algorithm is " + algorithm.getValue()
+                    + " but no natwest.auth.jwt.private-key is configured; configure a key pair shared by"
+                    + " every replica, use HS256, or set natwest.auth.jwt.ephemeral-key=true for a single instance");
+        }
+        log.warn("No natwest.auth.jwt.private-key configured; generating an ephemeral {} key", algorithm.getValue());
+        return JwtSigningKey.generate(keyId, algorithm);
+    }
+
+    /**
+     * Current key used to sign new tokens
+     */
+    public JwtSigningKey getSigningKey() {
+        return current;
+    }
+
+    /**
+     * Verification key for a kid, or null if the kid is unknown or retired
+     */
+    public Key getVerificationKey(String kid, String alg) {
+        JwtSigningKey key = kid != null ? keys.get(kid) : null;
+        if (key == null || !key.getAlgorithm().getValue().equals(alg)) {
+            return null;
+        }
+        return key.getVerificationKey();
+    }
+
+    /**
+     * Public JWKs of every key that can verify tokens, including the next key before it signs
+     */
+    public List<Map<String, Object>> getPublicJwks() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (JwtSigningKey key : keys.values()) {
+            if (key.getJwk() != null) {
+                jwks.add(key.getJwk());
+            }
+        }
+        return jwks;
+    }
+
+    /**
+     * Write the next key when its publication is due, then reload the ring from the database
+     */
+    @Scheduled(fixedDelayString = "${natwest.auth.jwt.rotation.check-interval-ms:60000}")
+    public void rotateAndPrune() {
+        Instant now = Instant.now();
+        try {
+            if (rotationIntervalSeconds > 0) {
+                publishNextKeyIfDue(now);
+            }
+            refresh(now);
+        } catch (Exception e) {
+            log.warn("Signing key refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void publishNextKeyIfDue(Instant now) {
+        List<RingEntry> ring = loadRing();
+        Instant latest = ring.get(ring.size() - 1).activateAt;
+        long next = (latest.getEpochSecond() / rotationIntervalSeconds + 1) * rotationIntervalSeconds;
+        if (next - publishAheadSeconds > now.getEpochSecond()) {
+            return;
+        }
+        // After a missed rotation (or for the configured key) take the first slot that still allows publication
+        long earliest = now.getEpochSecond() + publishAheadSeconds;
+        if (next < earliest) {
+            next = (earliest + rotationIntervalSeconds - 1) / rotationIntervalSeconds * rotationIntervalSeconds;
+        }
+
+        String kid = keyId + "-" + next;
+        JwtSigningKey key = JwtSigningKey.generate(kid, algorithm);
+        try {
+            jdbcTemplate.update(INSERT_SQL, kid, algorithm.getValue(), key.getEncodedPrivateKey(),
+                    key.getEncodedPublicKey(), Timestamp.from(Instant.ofEpochSecond(next)), Timestamp.from(now));
+            log.info("Published signing key {} (signs from {})", kid, Instant.ofEpochSecond(next));
+        } catch (DuplicateKeyException e) {
+            // Another replica published the same slot first; its key is loaded below
+        }
+    }
+
+    /**
+     * Rebuild the ring from the configured key and the signing_keys table
+     */
+    private synchronized void refresh(Instant now) {
+        List<RingEntry> ring = loadRing();
+        Map<String, JwtSigningKey> next = new ConcurrentHashMap<>();
+        JwtSigningKey signing = configured;
+        for (int i = 0; i < ring.size(); i++) {
+            RingEntry entry = ring.get(i);
+            if (!entry.activateAt.isAfter(now)) {
+                signing = entry.key;
+            }
+            // A superseded key verifies until overlap-seconds after its successor starts signing
+            if (i + 1 < ring.size() && ring.get(i + 1).activateAt.plusSeconds(overlapSeconds).isBefore(now)) {
+                if (entry.key != configured) {
+                    jdbcTemplate.update(DELETE_SQL, entry.key.getKid());
+                }
+                continue;
+            }
+            next.put(entry.key.getKid(), entry.key);
+        }
+
+        boolean removed = !next.keySet().containsAll(keys.keySet());
+        keys = next;
+        if (current == null || !current.getKid().equals(signing.getKid())) {
+            log.info("Signing tokens with {} (kid: {})", signing.getAlgorithm().getValue(), signing.getKid());
+        }
+        current = signing;
+        if (removed) {
+            // Cached results may have been verified with a key that no longer exists
+            introspectionCache.invalidateAll();
+            log.info("Retired expired verification keys; {} keys remain", next.size());
+        }
+    }
+
+    /**
+     * The configured key followed by rotated keys, in activation order
+     */
+    private List<RingEntry> loadRing() {
+        List<RingEntry> ring = new ArrayList<>();
+        ring.add(new RingEntry(configured, Instant.EPOCH));
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            String kid = rs.getString("kid");
+            if (kid.equals(configured.getKid())) {
+                return;
+            }
+            SignatureAlgorithm keyAlgorithm = SignatureAlgorithm.forName(rs.getString("algorithm"));
+            JwtSigningKey key = JwtSigningKey.fromEncoded(kid, keyAlgorithm,
+                    rs.getString("private_key"), rs.getString("public_key"));
+            ring.add(new RingEntry(key, rs.getTimestamp("activate_at").toInstant()));
+        });
+        ring.sort(Comparator.comparing(entry -> entry.activateAt));
+        return ring;
+    }
+}
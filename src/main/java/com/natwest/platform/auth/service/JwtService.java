@@ -1,16 +1,17 @@
 package com.natwest.platform.auth.service;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
-import java.time.Instant;
-import java.util.Date;
-import java.util.HashMap;
+import javax.annotation.PostConstruct;
+import java.security.Key;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * JWT Service for token generation and validation
@@ -18,8 +19,11 @@ import java.util.Map;
 @Service
 public class JwtService {
 
-    @Value("${natwest.auth.jwt.secret}")
-    private String jwtSecret;
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Autowired
+    private TokenEpochs tokenEpochs;
 
     @Value("${natwest.auth.jwt.expiration}")
     private long jwtExpirationMs;
@@ -27,93 +31,117 @@ public class JwtService {
     @Value("${natwest.auth.jwt.issuer}")
     private String issuer;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    @Value("${natwest.auth.jwt.lifetime-jitter.ratio:0.1}")
+    private double lifetimeJitterRatio;
+
+    @Value("${natwest.auth.jwt.lifetime-jitter.max-seconds:300}")
+    private long lifetimeJitterMaxSeconds;
+
+    @Value("${natwest.auth.jwt.max-lifetime-seconds:3600}")
+    private long maxLifetimeSeconds;
+
+    @Value("${natwest.auth.jwt.rotation.overlap-seconds:3900}")
+    private long keyOverlapSeconds;
+
+    @Value("${natwest.auth.change-feed.retention-seconds:3600}")
+    private long changeFeedRetentionSeconds;
+
+    private JwtParser parser;
+
+    private final CompactJwtEncoder tokenEncoder = new CompactJwtEncoder();
+
+    @PostConstruct
+    void init() {
+        validateLifetimes();
+        // One immutable parser; the verification key is looked up by kid for each token
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KeyRingResolver())
+                .build();
     }
 
     /**
-     * Generate JWT token for client
+     * Tokens must not outlive the key overlap window or the change feed retention, and jitter
+     * must leave every token a positive lifetime
      */
-    public String generateToken(String clientId, String tenantId, String scopes) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("client_id", clientId);
-        claims.put("tenant_id", tenantId);
-        claims.put("scope", scopes);
-        claims.put("token_type", "Bearer");
-        
-        Instant now = Instant.now();
-        Instant expiration = now.plusMillis(jwtExpirationMs);
-
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(clientId)
-                .setIssuer(issuer)
-                .setIssuedAt(Date.from(now))
-                .setExpiration(Date.from(expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+    private void validateLifetimes() {
+        if (lifetimeJitterRatio < 0 || lifetimeJitterRatio >= 1) {
+            throw new IllegalStateException("natwest.auth.jwt.lifetime-jitter.ratio must be in [0, 1), got "
+                    + lifetimeJitterRatio);
+        }
+        if (lifetimeJitterMaxSeconds < 0) {
+            throw new IllegalStateException("natwest.auth.jwt.lifetime-jitter.max-seconds must not be negative, got "
+                    + lifetimeJitterMaxSeconds);
+        }
+        if (maxLifetimeSeconds <= 0 || maxLifetimeSeconds > keyOverlapSeconds
+                || maxLifetimeSeconds > changeFeedRetentionSeconds) {
+            throw new IllegalStateException("natwest.auth.jwt.max-lifetime-seconds must be positive and at most "
+                    + "rotation.overlap-seconds (" + keyOverlapSeconds + ") and change-feed.retention-seconds ("
+                    + changeFeedRetentionSeconds + "), got " + maxLifetimeSeconds);
+        }
+        if (getExpirationTimeInSeconds() <= 0 || getExpirationTimeInSeconds() > maxLifetimeSeconds) {
+            throw new IllegalStateException("natwest.auth.jwt.expiration must be positive and at most "
+                    + "max-lifetime-seconds (" + maxLifetimeSeconds + "), got " + jwtExpirationMs + " ms");
+        }
     }
 
     /**
-     * Validate JWT token
+     * Selects the verification key from the kid header in O(1)
      */
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+    private final class KeyRingResolver extends SigningKeyResolverAdapter {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            Key key = keyRing.getVerificationKey(header.getKeyId(), header.getAlgorithm());
+            if (key == null) {
+                throw new SignatureException("Unknown signing key: " + header.getKeyId());
+            }
+            return key;
         }
     }
 
     /**
-     * Extract claims from JWT token
+     * Public keys for the JWKS endpoint (empty when signing with a shared secret)
      */
-    public Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public List<Map<String, Object>> getPublicJwks() {
+        return keyRing.getPublicJwks();
     }
 
     /**
-     * Extract client ID from token
+     * Generate JWT token for client, with a unique jti and the current client and tenant epochs for revocation
      */
-    public String extractClientId(String token) {
-        Claims claims = extractClaims(token);
-        return claims.get("client_id", String.class);
+    public String generateToken(String clientId, String tenantId, String scopes) {
+        return generateToken(clientId, tenantId, scopes, getExpirationTimeInSeconds());
     }
 
     /**
-     * Extract tenant ID from token
+     * Generate JWT token for client that expires lifetimeSeconds from now
      */
-    public String extractTenantId(String token) {
-        Claims claims = extractClaims(token);
-        return claims.get("tenant_id", String.class);
+    public String generateToken(String clientId, String tenantId, String scopes, long lifetimeSeconds) {
+        long now = System.currentTimeMillis();
+        return tokenEncoder.encode(keyRing.getSigningKey(), clientId, tenantId, scopes,
+                issuer, now, now + lifetimeSeconds * 1000, newTokenId(),
+                tokenEpochs.clientEpoch(clientId), tokenEpochs.tenantEpoch(tenantId));
     }
 
     /**
-     * Extract scopes from token
+     * Random 128-bit token id; it only needs to be unique, as the signature protects the token
      */
-    public String extractScopes(String token) {
-        Claims claims = extractClaims(token);
-        return claims.get("scope", String.class);
+    private static String newTokenId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] id = new byte[16];
+        long high = random.nextLong();
+        long low = random.nextLong();
+        for (int i = 0; i < 8; i++) {
+            id[i] = (byte) (high >>> (56 - 8 * i));
+            id[8 + i] = (byte) (low >>> (56 - 8 * i));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
     }
 
     /**
-     * Check if token is expired
+     * Extract claims from JWT token
      */
-    public boolean isTokenExpired(String token) {
-        try {
-            Claims claims = extractClaims(token);
-            return claims.getExpiration().before(new Date());
-        } catch (JwtException e) {
-            return true;
-        }
+    public Claims extractClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     /**
@@ -122,5 +150,28 @@ public class JwtService {
     public long getExpirationTimeInSeconds() {
         return jwtExpirationMs / 1000;
     }
+
+    /**
+     * Whether a client may be registered with this access token validity (null means the default)
+     */
+    public boolean isAllowedValidity(Integer clientValiditySeconds) {
+        return clientValiditySeconds == null
+                || (clientValiditySeconds > 0 && clientValiditySeconds <= maxLifetimeSeconds);
+    }
+
+    /**
+     * Lifetime of a client's next token: the client's own validity (or the default, and never more
+     * than max-lifetime-seconds), shortened by a random jitter of at most ratio * lifetime and
+     * max-seconds, so tokens issued together do not all expire together. Jitter only ever shortens a lifetime.
+     */
+    public long tokenLifetimeSeconds(Integer clientValiditySeconds) {
+        long lifetime = clientValiditySeconds != null && clientValiditySeconds > 0
+                ? Math.min(clientValiditySeconds, maxLifetimeSeconds) : getExpirationTimeInSeconds();
+        long maxJitter = Math.min((long) (lifetime * lifetimeJitterRatio), lifetimeJitterMaxSeconds);
+        if (maxJitter <= 0) {
+            return lifetime;
+        }
+        return lifetime - ThreadLocalRandom.current().nextLong(maxJitter + 1);
+    }
 }
 
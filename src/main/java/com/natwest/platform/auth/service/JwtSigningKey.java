@@ -0,0 +1,194 @@
+package com.natwest.platform.auth.service;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A signing key identified by kid, with its public JWK representation
+ */
+public final class JwtSigningKey {
+
+    private final String kid;
+    private final SignatureAlgorithm algorithm;
+    private final Key signingKey;
+    private final Key verificationKey;
+    private final Map<String, Object> jwk;
+
+    private JwtSigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+        this.jwk = buildJwk(kid, algorithm, verificationKey);
+    }
+
+    /**
+     * Shared-secret HMAC key; never published in the JWKS
+     */
+    public static JwtSigningKey hmac(String kid, String secret) {
+        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return new JwtSigningKey(kid, SignatureAlgorithm.HS256, key, key);
+    }
+
+    /**
+     * Asymmetric key from an existing key pair
+     */
+    public static JwtSigningKey fromKeyPair(String kid, SignatureAlgorithm algorithm, KeyPair keyPair) {
+        if (!algorithm.isRsa() && !algorithm.isEllipticCurve()) {
+            throw new IllegalArgumentException("Key pairs require an RSA or EC algorithm, got " + algorithm);
+        }
+        return new JwtSigningKey(kid, algorithm, keyPair.getPrivate(), keyPair.getPublic());
+    }
+
+    /**
+     * Key from PEM or base64 DER encoded PKCS#8 private and X.509 public keys, or a base64
+     * HMAC secret. The public key may be omitted for RSA, where it is derived from the private key.
+     */
+    public static JwtSigningKey fromEncoded(String kid, SignatureAlgorithm algorithm,
+                                            String privateKey, String publicKey) {
+        if (algorithm.isHmac()) {
+            Key key = Keys.hmacShaKeyFor(decodePem(privateKey));
+            return new JwtSigningKey(kid, algorithm, key, key);
+        }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.getFamilyName().equals("ECDSA") ? "EC" : "RSA");
+            PrivateKey priv = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decodePem(privateKey)));
+            PublicKey pub;
+            if (publicKey != null && !publicKey.trim().isEmpty()) {
+                pub = keyFactory.generatePublic(new X509EncodedKeySpec(decodePem(publicKey)));
+            } else if (priv instanceof RSAPrivateCrtKey) {
+                RSAPrivateCrtKey crt = (RSAPrivateCrtKey) priv;
+                pub = keyFactory.generatePublic(new RSAPublicKeySpec(crt.getModulus(), crt.getPublicExponent()));
+            } else {
+                throw new IllegalArgumentException("A public key is required for " + algorithm);
+            }
+            return fromKeyPair(kid, algorithm, new KeyPair(pub, priv));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid " + algorithm + " key material for kid " + kid, e);
+        }
+    }
+
+    /**
+     * Freshly generated key (random HMAC secret, RSA 2048 or EC P-256)
+     */
+    public static JwtSigningKey generate(String kid, SignatureAlgorithm algorithm) {
+        if (algorithm.isHmac()) {
+            Key key = Keys.secretKeyFor(algorithm);
+            return new JwtSigningKey(kid, algorithm, key, key);
+        }
+        try {
+            KeyPairGenerator generator;
+            if (algorithm.isRsa()) {
+                generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(Math.max(2048, algorithm.getMinKeyLength()));
+            } else if (algorithm == SignatureAlgorithm.ES256) {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                throw new IllegalArgumentException("Cannot generate a key pair for " + algorithm);
+            }
+            return fromKeyPair(kid, algorithm, generator.generateKeyPair());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Key generation failed for " + algorithm, e);
+        }
+    }
+
+    public String getKid() { return kid; }
+
+    public SignatureAlgorithm getAlgorithm() { return algorithm; }
+
+    public Key getSigningKey() { return signingKey; }
+
+    public Key getVerificationKey() { return verificationKey; }
+
+    /**
+     * Base64 PKCS#8 private key, or the base64 secret for HMAC keys
+     */
+    public String getEncodedPrivateKey() {
+        return Base64.getEncoder().encodeToString(signingKey.getEncoded());
+    }
+
+    /**
+     * Base64 X.509 public key, or null for HMAC keys
+     */
+    public String getEncodedPublicKey() {
+        return algorithm.isHmac() ? null : Base64.getEncoder().encodeToString(verificationKey.getEncoded());
+    }
+
+    /**
+     * Public JWK, or null for symmetric keys
+     */
+    public Map<String, Object> getJwk() { return jwk; }
+
+    private static Map<String, Object> buildJwk(String kid, SignatureAlgorithm algorithm, Key key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (key instanceof RSAPublicKey) {
+            RSAPublicKey rsa = (RSAPublicKey) key;
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(unsigned(rsa.getModulus())));
+            jwk.put("e", base64Url(unsigned(rsa.getPublicExponent())));
+        } else if (key instanceof ECPublicKey) {
+            ECPublicKey ec = (ECPublicKey) key;
+            int size = (ec.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-" + ec.getParams().getCurve().getField().getFieldSize());
+            jwk.put("x", base64Url(fixedLength(ec.getW().getAffineX(), size)));
+            jwk.put("y", base64Url(fixedLength(ec.getW().getAffineY(), size)));
+        } else {
+            return null;
+        }
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm.getValue());
+        jwk.put("kid", kid);
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            return Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return bytes;
+    }
+
+    private static byte[] fixedLength(BigInteger value, int length) {
+        byte[] bytes = unsigned(value);
+        if (bytes.length == length) {
+            return bytes;
+        }
+        byte[] padded = new byte[length];
+        System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+        return padded;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static byte[] decodePem(String encoded) {
+        String body = encoded.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(body);
+    }
+}
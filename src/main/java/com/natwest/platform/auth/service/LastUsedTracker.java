@@ -0,0 +1,80 @@
+package com.natwest.platform.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind tracker for client lastUsedAt timestamps.
+ * Keeps the latest use per client in memory and flushes them in one batch.
+ */
+@Service
+public class LastUsedTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(LastUsedTracker.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE oauth2_clients SET last_used_at = ? " +
+            "WHERE client_id = ? AND (last_used_at IS NULL OR last_used_at < ?)";
+
+    private final Map<String, Instant> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Record a client use; repeated uses before the next flush coalesce
+     */
+    public void recordUse(String clientId, Instant usedAt) {
+        pending.merge(clientId, usedAt, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+    }
+
+    /**
+     * Flush pending timestamps in a single batched update
+     */
+    @Scheduled(fixedDelayString = "${natwest.auth.last-used.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<String, Instant>> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<String, Instant> entry : pending.entrySet()) {
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, entry) -> {
+                Timestamp timestamp = Timestamp.from(entry.getValue());
+                ps.setTimestamp(1, timestamp);
+                ps.setString(2, entry.getKey());
+                ps.setTimestamp(3, timestamp);
+            });
+        } catch (Exception e) {
+            // Keep the entries so the next flush retries them
+            log.warn("Failed to flush lastUsedAt for {} clients: {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        // Only drop entries that were not overwritten by a newer use during the flush
+        for (Map.Entry<String, Instant> entry : batch) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -1,15 +1,22 @@
 package com.natwest.platform.auth.service;
 
-import com.natwest.platform.auth.entity.OAuth2Client;
-import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import com.natwest.platform.auth.service.StageTimers.Stage;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * OAuth2 Service for handling client credentials flow
@@ -17,52 +24,146 @@ import java.util.Optional;
 @Service
 public class OAuth2Service {
 
+    private static final int BATCH_PARALLEL_THRESHOLD = 8;
+
     @Autowired
-    private OAuth2ClientRepository clientRepository;
+    private ClientRegistryCache clientRegistryCache;
 
     @Autowired
     private JwtService jwtService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private LastUsedTracker lastUsedTracker;
+
+    @Autowired
+    private IntrospectionCache introspectionCache;
+
+    @Value("${natwest.auth.introspection.batch.max-size:100}")
+    private int maxBatchSize;
+
+    @Value("${natwest.auth.introspection.batch.parallelism:0}")
+    private int batchParallelism;
+
+    private ForkJoinPool batchPool;
+
+    @PostConstruct
+    void init() {
+        int parallelism = batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors();
+        batchPool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchPool.shutdown();
+    }
+
+    @Autowired
+    private ClientSecretVerifier clientSecretVerifier;
+
+    @Autowired
+    private ScopeRegistry scopeRegistry;
+
+    @Autowired
+    private StageTimers stageTimers;
+
+    @Autowired
+    private TrafficAnalytics trafficAnalytics;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    @Autowired
+    private TokenEpochs tokenEpochs;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private TokenRequestCoalescer tokenRequestCoalescer;
+
+    /**
+     * Outcome of a revocation request
+     */
+    public enum RevocationResult {
+        /** The token is now revoked */
+        REVOKED,
+        /** The token was already invalid or expired; nothing to revoke */
+        NOT_ACTIVE,
+        /** The token was issued to a different client */
+        NOT_OWNER
+    }
 
     /**
-     * Handle client credentials grant
+     * Handle client credentials grant; concurrent identical requests share one issued token
      */
     public Map<String, Object> clientCredentialsGrant(String clientId, String clientSecret, String scope) {
+        Map<String, Object> response = tokenRequestCoalescer.execute(clientId, clientSecret, scope,
+                () -> issueToken(clientId, clientSecret, scope), stillIssuable(clientId));
+        // Counted per request, coalesced or not
+        trafficAnalytics.record(TrafficAnalytics.Operation.TOKEN, (String) response.get("tenant_id"), clientId);
+        return response;
+    }
+
+    /**
+     * Whether a recently issued response may be handed out again: the client is still active
+     * and its token has not been revoked by jti or by a client or tenant epoch bump
+     */
+    private Predicate<Map<String, Object>> stillIssuable(String clientId) {
+        return response -> {
+            Optional<CachedClient> client = clientRegistryCache.findByClientId(clientId);
+            if (!client.isPresent() || !client.get().isActive()) {
+                return false;
+            }
+            TokenIntrospection token = introspectionCache.get((String) response.get("access_token"), this::verifyToken);
+            return isLive(token);
+        };
+    }
+
+    private Map<String, Object> issueToken(String clientId, String clientSecret, String scope) {
         // Validate client credentials
-        Optional<OAuth2Client> clientOpt = clientRepository.findByClientId(clientId);
+        long stageStart = System.nanoTime();
+        Optional<CachedClient> clientOpt = clientRegistryCache.findByClientId(clientId);
+        stageTimers.record(Stage.CLIENT_LOOKUP, stageStart);
         if (!clientOpt.isPresent()) {
             throw new IllegalArgumentException("Invalid client credentials");
         }
 
-        OAuth2Client client = clientOpt.get();
+        CachedClient client = clientOpt.get();
         
         // Check client status
-        if (client.getStatus() != OAuth2Client.ClientStatus.ACTIVE) {
+        if (!client.isActive()) {
             throw new IllegalArgumentException("Client is not active");
         }
 
-        // Validate client secret (in demo, we store plain text for simplicity)
-        if (!client.getClientSecret().equals(clientSecret)) {
+        // Validate client secret against its BCrypt hash
+        stageStart = System.nanoTime();
+        boolean secretMatches = clientSecretVerifier.matches(client, clientSecret);
+        stageTimers.record(Stage.SECRET_VERIFICATION, stageStart);
+        if (!secretMatches) {
             throw new IllegalArgumentException("Invalid client credentials");
         }
 
         // Validate requested scopes
-        String allowedScopes = client.getScopes();
-        String grantedScopes = validateAndFilterScopes(scope, allowedScopes);
+        stageStart = System.nanoTime();
+        String grantedScopes = validateAndFilterScopes(scope, client);
+        stageTimers.record(Stage.SCOPE_FILTERING, stageStart);
 
-        // Generate JWT token
-        String accessToken = jwtService.generateToken(clientId, client.getTenantId(), grantedScopes);
+        // Generate JWT token with the client's own (jittered) lifetime
+        long lifetimeSeconds = jwtService.tokenLifetimeSeconds(client.getAccessTokenValiditySeconds());
+        stageStart = System.nanoTime();
+        String accessToken = jwtService.generateToken(clientId, client.getTenantId(), grantedScopes, lifetimeSeconds);
+        stageTimers.record(Stage.SIGNING, stageStart);
 
-        // Update last used timestamp
-        clientRepository.updateLastUsedAt(clientId, Instant.now());
+        // Record last used timestamp (flushed in batches by LastUsedTracker)
+        stageStart = System.nanoTime();
+        lastUsedTracker.recordUse(clientId, Instant.now());
+        stageTimers.record(Stage.LAST_USED_WRITE, stageStart);
 
         // Prepare response
         Map<String, Object> response = new HashMap<>();
         response.put("access_token", accessToken);
         response.put("token_type", "Bearer");
-        response.put("expires_in", jwtService.getExpirationTimeInSeconds());
+        response.put("expires_in", lifetimeSeconds);
         response.put("scope", grantedScopes);
         response.put("tenant_id", client.getTenantId());
 
@@ -70,57 +171,103 @@ public class OAuth2Service {
     }
 
     /**
-     * Validate and filter requested scopes against allowed scopes
+     * Validate and filter requested scopes against the client's allowed scope bitset
+     */
+    private String validateAndFilterScopes(String requestedScopes, CachedClient client) {
+        return scopeRegistry.grant(requestedScopes, client.getAllowedScopes(), client.getScopes());
+    }
+
+    /**
+     * Introspect token, serving repeated tokens from the verified-result cache
      */
-    private String validateAndFilterScopes(String requestedScopes, String allowedScopes) {
-        if (requestedScopes == null || requestedScopes.trim().isEmpty()) {
-            return allowedScopes; // Return all allowed scopes if none requested
+    public TokenIntrospection introspectToken(String token) {
+        TokenIntrospection result = introspectionCache.get(token, this::verifyToken);
+        // Checked after the cache, so revocation also applies to cached results
+        if (result.isActive() && !isLive(result)) {
+            return TokenIntrospection.inactive();
         }
+        if (result.isActive()) {
+            trafficAnalytics.record(TrafficAnalytics.Operation.INTROSPECTION, result.getTenantId(), result.getClientId());
+        }
+        return result;
+    }
+
+    /**
+     * Whether a verified token is active and neither revoked by jti nor issued before a current epoch
+     */
+    private boolean isLive(TokenIntrospection token) {
+        return token.isActive() && tokenEpochs.isCurrent(token)
+                && !revocationList.isRevoked(token.getTokenId(), token.getExpiresAt());
+    }
 
-        if (allowedScopes == null || allowedScopes.trim().isEmpty()) {
-            return ""; // No scopes allowed
+    /**
+     * Revoke an access token on behalf of the client it was issued to (RFC 7009)
+     */
+    public RevocationResult revokeToken(String clientId, String clientSecret, String token) {
+        Optional<CachedClient> clientOpt = clientRegistryCache.findByClientId(clientId);
+        if (!clientOpt.isPresent() || !clientSecretVerifier.matches(clientOpt.get(), clientSecret)) {
+            throw new IllegalArgumentException("Invalid client credentials");
         }
 
-        String[] requested = requestedScopes.split("[,\\s]+");
-        String[] allowed = allowedScopes.split("[,\\s]+");
-
-        StringBuilder granted = new StringBuilder();
-        for (String requestedScope : requested) {
-            for (String allowedScope : allowed) {
-                if (requestedScope.trim().equals(allowedScope.trim())) {
-                    if (granted.length() > 0) {
-                        granted.append(",");
-                    }
-                    granted.append(requestedScope.trim());
-                    break;
-                }
-            }
+        TokenIntrospection introspection = verifyToken(token);
+        if (!introspection.isActive() || introspection.getTokenId() == null) {
+            return RevocationResult.NOT_ACTIVE;
+        }
+        if (!clientId.equals(introspection.getClientId())) {
+            return RevocationResult.NOT_OWNER;
+        }
+        // Other replicas pick the revocation up from the change feed
+        changeFeed.publish(ChangeFeed.Type.TOKEN_REVOKED, introspection.getTokenId(), introspection.getExpiresAt());
+        revocationList.revoke(introspection.getTokenId(), introspection.getExpiresAt());
+        return RevocationResult.REVOKED;
+    }
+
+    /**
+     * Introspect a batch of tokens in parallel, returning one result per token in order
+     */
+    public List<TokenIntrospection> introspectTokens(List<String> tokens) {
+        if (tokens.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch exceeds maximum of " + maxBatchSize + " tokens");
+        }
+        if (tokens.size() < BATCH_PARALLEL_THRESHOLD) {
+            return tokens.stream().map(this::introspectToken).collect(Collectors.toList());
         }
 
-        return granted.toString();
+        try {
+            // Ordered parallel stream on a dedicated pool keeps the common pool free
+            return batchPool.submit(() -> tokens.parallelStream()
+                    .map(this::introspectToken)
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch introspection interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch introspection failed", e.getCause());
+        }
     }
 
     /**
-     * Introspect token (validate and return token info)
+     * Verify and decode a token exactly once
      */
-    public Map<String, Object> introspectToken(String token) {
-        Map<String, Object> response = new HashMap<>();
-        
+    private TokenIntrospection verifyToken(String token) {
         try {
-            if (jwtService.validateToken(token) && !jwtService.isTokenExpired(token)) {
-                response.put("active", true);
-                response.put("client_id", jwtService.extractClientId(token));
-                response.put("tenant_id", jwtService.extractTenantId(token));
-                response.put("scope", jwtService.extractScopes(token));
-                response.put("token_type", "Bearer");
-            } else {
-                response.put("active", false);
+            // Signature and expiry are both checked by the parser; rejected tokens are timed too
+            long stageStart = System.nanoTime();
+            Claims claims;
+            try {
+                claims = jwtService.extractClaims(token);
+            } finally {
+                stageTimers.record(Stage.VERIFICATION, stageStart);
             }
+
+            stageStart = System.nanoTime();
+            TokenIntrospection introspection = TokenIntrospection.fromClaims(claims);
+            stageTimers.record(Stage.CLAIM_EXTRACTION, stageStart);
+            return introspection;
         } catch (Exception e) {
-            response.put("active", false);
+            return TokenIntrospection.inactive();
         }
-
-        return response;
     }
 }
 
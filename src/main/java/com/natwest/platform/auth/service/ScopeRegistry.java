@@ -0,0 +1,140 @@
+package com.natwest.platform.auth.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns known scopes to integer ids so scope checks are bitset operations.
+ * Only client definitions intern scopes; requested scopes are looked up, never added.
+ */
+@Component
+public class ScopeRegistry {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Id for a scope, assigning the next free id if it is new
+     */
+    public int intern(String scope) {
+        Integer id = ids.get(scope);
+        if (id != null) {
+            return id;
+        }
+        synchronized (ids) {
+            return ids.computeIfAbsent(scope, s -> ids.size());
+        }
+    }
+
+    /**
+     * Id for a known scope, or -1
+     */
+    public int idOf(String scope) {
+        Integer id = ids.get(scope);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Build the bitset for a comma or whitespace separated scope list
+     */
+    public ScopeSet toScopeSet(String scopes) {
+        if (scopes == null || scopes.isEmpty()) {
+            return ScopeSet.EMPTY;
+        }
+        long[] bits = new long[0];
+        int length = scopes.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || isSeparator(scopes.charAt(i))) {
+                if (start >= 0) {
+                    int id = intern(scopes.substring(start, i));
+                    int word = id >>> 6;
+                    if (word >= bits.length) {
+                        bits = Arrays.copyOf(bits, word + 1);
+                    }
+                    bits[word] |= 1L << id;
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        return new ScopeSet(bits);
+    }
+
+    /**
+     * Grant the requested scopes that the client is allowed, in requested order.
+     * With no scopes requested, every allowed scope is granted.
+     */
+    public String grant(String requestedScopes, ScopeSet allowed, String allowedScopes) {
+        if (requestedScopes == null || isBlank(requestedScopes)) {
+            return allowedScopes; // Return all allowed scopes if none requested
+        }
+        if (allowed.isEmpty()) {
+            return ""; // No scopes allowed
+        }
+
+        // Tokenise once, remembering token bounds and their ids
+        int length = requestedScopes.length();
+        int[] starts = new int[8];
+        int[] ends = new int[8];
+        int[] tokenIds = new int[8];
+        int count = 0;
+        long[] requested = new long[(ids.size() >>> 6) + 1];
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || isSeparator(requestedScopes.charAt(i))) {
+                if (start >= 0) {
+                    int id = idOf(requestedScopes.substring(start, i));
+                    if (id >= 0 && (id >>> 6) < requested.length) {
+                        if (count == starts.length) {
+                            starts = Arrays.copyOf(starts, count * 2);
+                            ends = Arrays.copyOf(ends, count * 2);
+                            tokenIds = Arrays.copyOf(tokenIds, count * 2);
+                        }
+                        starts[count] = start;
+                        ends[count] = i;
+                        tokenIds[count] = id;
+                        count++;
+                        requested[id >>> 6] |= 1L << id;
+                    }
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+
+        allowed.retainInto(requested);
+
+        // Emit each granted scope once, in the order it was requested
+        StringBuilder granted = new StringBuilder(length);
+        for (int t = 0; t < count; t++) {
+            int id = tokenIds[t];
+            long mask = 1L << id;
+            if ((requested[id >>> 6] & mask) != 0) {
+                if (granted.length() > 0) {
+                    granted.append(',');
+                }
+                granted.append(requestedScopes, starts[t], ends[t]);
+                requested[id >>> 6] &= ~mask;
+            }
+        }
+        return granted.toString();
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ',' || Character.isWhitespace(c);
+    }
+
+    private static boolean isBlank(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
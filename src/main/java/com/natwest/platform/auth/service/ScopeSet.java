@@ -0,0 +1,33 @@
+package com.natwest.platform.auth.service;
+
+/**
+ * Immutable bitset of interned scope ids
+ */
+public final class ScopeSet {
+
+    static final ScopeSet EMPTY = new ScopeSet(new long[0]);
+
+    private final long[] words;
+
+    ScopeSet(long[] words) {
+        this.words = words;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Intersect into a caller-owned bitset, clearing bits this set does not contain
+     */
+    void retainInto(long[] bits) {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] &= i < words.length ? words[i] : 0L;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.natwest.platform.auth.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histogram timers for the individual stages of token issuance and introspection.
+ * Published as oauth2.token.stage and oauth2.introspection.stage, tagged by stage.
+ */
+@Component
+public class StageTimers {
+
+    /**
+     * Timed stages and the metric each belongs to
+     */
+    public enum Stage {
+        CLIENT_LOOKUP("oauth2.token.stage", "client_lookup"),
+        SECRET_VERIFICATION("oauth2.token.stage", "secret_verification"),
+        SCOPE_FILTERING("oauth2.token.stage", "scope_filtering"),
+        SIGNING("oauth2.token.stage", "signing"),
+        LAST_USED_WRITE("oauth2.token.stage", "last_used_write"),
+        VERIFICATION("oauth2.introspection.stage", "verification"),
+        CLAIM_EXTRACTION("oauth2.introspection.stage", "claim_extraction");
+
+        private final String metric;
+        private final String tag;
+
+        Stage(String metric, String tag) {
+            this.metric = metric;
+            this.tag = tag;
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+    @PostConstruct
+    void init() {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder(stage.metric)
+                    .description("Time spent in one stage of the OAuth2 request path")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(500))
+                    .maximumExpectedValue(Duration.ofSeconds(2))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Record a stage that started at the given System.nanoTime() reading
+     */
+    public void record(Stage stage, long startNanos) {
+        timers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
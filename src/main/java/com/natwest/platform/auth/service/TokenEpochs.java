@@ -0,0 +1,141 @@
+package com.natwest.platform.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-client and per-tenant token epochs, for mass revocation.
+ *
+ * Every token carries the client and tenant epochs current when it was issued, and is only
+ * valid while both are still current. Revoking all tokens for a client or a tenant is one
+ * counter bump; checking a token is two map lookups. Epochs are persisted in token_epochs
+ * and held in memory, where only bumped clients and tenants take up space. Bumps reach
+ * other replicas through the change feed.
+ */
+@Service
+public class TokenEpochs {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenEpochs.class);
+
+    /**
+     * What an epoch applies to
+     */
+    public enum Subject { CLIENT, TENANT }
+
+    private static final String SELECT_ALL_SQL = "SELECT subject_type, subject_id, epoch FROM token_epochs";
+
+    private static final String SELECT_SQL =
+            "SELECT epoch FROM token_epochs WHERE subject_type = ? AND subject_id = ?";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE token_epochs SET epoch = epoch + 1, updated_at = ? WHERE subject_type = ? AND subject_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO token_epochs (subject_type, subject_id, epoch, updated_at) VALUES (?, ?, 0, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    private final Map<String, Long> clientEpochs = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> tenantEpochs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Load every persisted epoch; ChangeFeedPoller calls this after taking its watermark
+     */
+    void reload() {
+        jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+            apply(Subject.valueOf(rs.getString("subject_type")), rs.getString("subject_id"), rs.getLong("epoch"));
+        });
+        log.info("Loaded token epochs for {} clients and {} tenants", clientEpochs.size(), tenantEpochs.size());
+    }
+
+    /**
+     * Current epoch for a client (0 until its tokens are first revoked)
+     */
+    public long clientEpoch(String clientId) {
+        return epoch(clientEpochs, clientId);
+    }
+
+    /**
+     * Current epoch for a tenant (0 until its tokens are first revoked)
+     */
+    public long tenantEpoch(String tenantId) {
+        return epoch(tenantEpochs, tenantId);
+    }
+
+    /**
+     * Whether a verified token was issued at or after both current epochs
+     */
+    public boolean isCurrent(TokenIntrospection token) {
+        return token.getClientEpoch() >= clientEpoch(token.getClientId())
+                && token.getTenantEpoch() >= tenantEpoch(token.getTenantId());
+    }
+
+    /**
+     * Revoke every token issued so far to a client or tenant; returns the new epoch
+     */
+    public long bump(Subject subject, String id) {
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            // First bump for this subject: start its row at epoch 0, incremented below
+            jdbcTemplate.update(INSERT_SQL, subject.name(), id, now);
+        } catch (DuplicateKeyException e) {
+            // Row already exists
+        }
+        // The epoch row and its feed entry commit together
+        long epoch = transaction.execute(status -> {
+            if (jdbcTemplate.update(INCREMENT_SQL, now, subject.name(), id) == 0) {
+                throw new IllegalStateException("Token epoch row missing for " + id);
+            }
+            Long current = jdbcTemplate.queryForObject(SELECT_SQL, Long.class, subject.name(), id);
+            changeFeed.publish(subject == Subject.CLIENT ? ChangeFeed.Type.CLIENT_EPOCH : ChangeFeed.Type.TENANT_EPOCH,
+                    id, current);
+            return current;
+        });
+        apply(subject, id, epoch);
+        log.info("Bumped {} token epoch for {} to {}", subject.name().toLowerCase(), id, epoch);
+        return epoch;
+    }
+
+    /**
+     * Record an epoch read from the database; epochs never move backwards
+     */
+    void apply(Subject subject, String id, long epoch) {
+        Map<String, Long> epochs = subject == Subject.CLIENT ? clientEpochs : tenantEpochs;
+        epochs.merge(id, epoch, Math::max);
+    }
+
+    private static long epoch(Map<String, Long> epochs, String id) {
+        if (id == null || epochs.isEmpty()) {
+            return 0L;
+        }
+        Long epoch = epochs.get(id);
+        return epoch != null ? epoch : 0L;
+    }
+}
@@ -0,0 +1,121 @@
+package com.natwest.platform.auth.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Typed token introspection result (RFC 7662 response body)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class TokenIntrospection {
+
+    private static final TokenIntrospection INACTIVE = new TokenIntrospection(false, null, null, null, null, null, null, null, null, 0L, 0L);
+
+    private final boolean active;
+    private final String clientId;
+    private final String tenantId;
+    private final String scope;
+    private final String subject;
+    private final String issuer;
+    private final Long issuedAt;
+    private final Long expiresAt;
+    private final String tokenId;
+    private final long clientEpoch;
+    private final long tenantEpoch;
+
+    private TokenIntrospection(boolean active, String clientId, String tenantId, String scope,
+                               String subject, String issuer, Long issuedAt, Long expiresAt, String tokenId,
+                               long clientEpoch, long tenantEpoch) {
+        this.active = active;
+        this.clientId = clientId;
+        this.tenantId = tenantId;
+        this.scope = scope;
+        this.subject = subject;
+        this.issuer = issuer;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.tokenId = tokenId;
+        this.clientEpoch = clientEpoch;
+        this.tenantEpoch = tenantEpoch;
+    }
+
+    /**
+     * Result for tokens that failed verification or have expired
+     */
+    public static TokenIntrospection inactive() {
+        return INACTIVE;
+    }
+
+    /**
+     * Build an active result from already verified claims
+     */
+    public static TokenIntrospection fromClaims(Claims claims) {
+        return new TokenIntrospection(
+                true,
+                claims.get("client_id", String.class),
+                claims.get("tenant_id", String.class),
+                claims.get("scope", String.class),
+                claims.getSubject(),
+                claims.getIssuer(),
+                toEpochSeconds(claims.getIssuedAt()),
+                toEpochSeconds(claims.getExpiration()),
+                claims.getId(),
+                toEpoch(claims.get("client_epoch", Long.class)),
+                toEpoch(claims.get("tenant_epoch", Long.class))
+        );
+    }
+
+    private static long toEpoch(Long epoch) {
+        return epoch != null ? epoch : 0L;
+    }
+
+    private static Long toEpochSeconds(Date date) {
+        return date != null ? date.getTime() / 1000 : null;
+    }
+
+    @JsonProperty("active")
+    public boolean isActive() { return active; }
+
+    @JsonProperty("client_id")
+    public String getClientId() { return clientId; }
+
+    @JsonProperty("tenant_id")
+    public String getTenantId() { return tenantId; }
+
+    @JsonProperty("scope")
+    public String getScope() { return scope; }
+
+    @JsonProperty("token_type")
+    public String getTokenType() { return active ? "Bearer" : null; }
+
+    @JsonProperty("sub")
+    public String getSubject() { return subject; }
+
+    @JsonProperty("iss")
+    public String getIssuer() { return issuer; }
+
+    @JsonProperty("iat")
+    public Long getIssuedAt() { return issuedAt; }
+
+    @JsonProperty("exp")
+    public Long getExpiresAt() { return expiresAt; }
+
+    @JsonProperty("jti")
+    public String getTokenId() { return tokenId; }
+
+    /**
+     * Client epoch the token was issued under (0 when absent)
+     */
+    @JsonIgnore
+    public long getClientEpoch() { return clientEpoch; }
+
+    /**
+     * Tenant epoch the token was issued under (0 when absent)
+     */
+    @JsonIgnore
+    public long getTenantEpoch() { return tenantEpoch; }
+}
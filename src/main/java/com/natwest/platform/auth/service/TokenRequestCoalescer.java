@@ -0,0 +1,160 @@
+package com.natwest.platform.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical token requests.
+ *
+ * Requests are identical when client, requested scope and presented secret match; the
+ * secret only enters the key as a keyed HMAC. The first request computes the response
+ * and concurrent duplicates wait for it instead of repeating lookup, BCrypt, signing and
+ * the lastUsedAt write. A response can also be reused for reuse-window-ms after it was
+ * minted, with expires_in reduced by its age, as long as the caller confirms it is still valid
+ * (client active, token not revoked). Failures are shared with waiters but never reused.
+ */
+@Service
+public class TokenRequestCoalescer {
+
+    @Autowired
+    private ClientSecretVerifier clientSecretVerifier;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${natwest.auth.token-coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${natwest.auth.token-coalescing.reuse-window-ms:1000}")
+    private long reuseWindowMs;
+
+    @Value("${natwest.auth.token-coalescing.maximum-size:10000}")
+    private long maximumSize;
+
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+
+    private Cache<String, MintedResponse> recent;
+
+    private Counter joined;
+
+    private Counter reused;
+
+    /**
+     * A response and when it was minted
+     */
+    private static final class MintedResponse {
+        private final Map<String, Object> response;
+        private final long mintedAtNanos;
+
+        private MintedResponse(Map<String, Object> response, long mintedAtNanos) {
+            this.response = response;
+            this.mintedAtNanos = mintedAtNanos;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (reuseWindowMs > 0) {
+            recent = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(Duration.ofMillis(reuseWindowMs))
+                    .build();
+        }
+        joined = Counter.builder("oauth2.token.coalesced")
+                .description("Token requests answered without minting a token of their own")
+                .tag("outcome", "joined_in_flight")
+                .register(meterRegistry);
+        reused = Counter.builder("oauth2.token.coalesced")
+                .description("Token requests answered without minting a token of their own")
+                .tag("outcome", "reused_recent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the grant once for all concurrent identical requests; a recent response is only
+     * reused while reusable accepts it
+     */
+    public Map<String, Object> execute(String clientId, String clientSecret, String scope,
+                                       Supplier<Map<String, Object>> grant,
+                                       Predicate<Map<String, Object>> reusable) {
+        if (!enabled || clientId == null || clientSecret == null) {
+            return grant.get();
+        }
+        String key = clientSecretVerifier.credentialKey(clientId, clientSecret) + '\0' + (scope != null ? scope : "");
+
+        if (recent != null) {
+            MintedResponse minted = recent.getIfPresent(key);
+            if (minted != null) {
+                if (reusable.test(minted.response)) {
+                    reused.increment();
+                    return aged(minted);
+                }
+                // Revoked or client deactivated since it was minted; a new grant decides
+                recent.asMap().remove(key, minted);
+            }
+        }
+
+        CompletableFuture<Map<String, Object>> flight = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            joined.increment();
+            return new HashMap<>(await(existing));
+        }
+
+        try {
+            Map<String, Object> response = grant.get();
+            // Published before the flight is removed, so no request can miss both
+            if (recent != null) {
+                recent.put(key, new MintedResponse(response, System.nanoTime()));
+            }
+            flight.complete(response);
+            return new HashMap<>(response);
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Copy of a reused response whose expires_in never overstates the token's remaining life
+     */
+    private static Map<String, Object> aged(MintedResponse minted) {
+        Map<String, Object> response = new HashMap<>(minted.response);
+        Object expiresIn = response.get("expires_in");
+        if (expiresIn instanceof Number) {
+            long ageMillis = (System.nanoTime() - minted.mintedAtNanos) / 1_000_000L;
+            long ageSeconds = (ageMillis + 999) / 1000;
+            response.put("expires_in", Math.max(0L, ((Number) expiresIn).longValue() - ageSeconds));
+        }
+        return response;
+    }
+
+    private static Map<String, Object> await(CompletableFuture<Map<String, Object>> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // Waiters see the same exception as the request that ran the grant
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
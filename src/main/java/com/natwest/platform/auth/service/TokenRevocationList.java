@@ -0,0 +1,121 @@
+package com.natwest.platform.auth.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked token ids (jti), checked on every introspection.
+ *
+ * Revocations are bucketed by the token's expiry time. Each bucket is a bloom filter in front
+ * of an exact set: a check is one map lookup plus a few bit probes, and only a bloom hit
+ * touches the exact set. A bucket is dropped whole once every token in it has expired, so
+ * memory tracks revoked tokens that are still live, not tokens issued.
+ */
+@Service
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${natwest.auth.revocation.bucket-seconds:300}")
+    private long bucketSeconds;
+
+    @Value("${natwest.auth.revocation.expected-per-bucket:10000}")
+    private int expectedPerBucket;
+
+    @Value("${natwest.auth.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Revoked tokens expiring within one bucket interval
+     */
+    private static final class Bucket {
+        private final BloomFilter filter;
+        private final Map<String, Boolean> tokenIds = new ConcurrentHashMap<>();
+
+        private Bucket(int expectedInsertions, double falsePositiveRate) {
+            this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("oauth2.revocation.tokens", this, TokenRevocationList::size)
+                .description("Revoked tokens that have not yet expired")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revoke a token until its expiry; already-expired tokens are ignored
+     */
+    public void revoke(String tokenId, long expiresAtEpochSeconds) {
+        if (tokenId == null || expiresAtEpochSeconds <= nowEpochSeconds()) {
+            return;
+        }
+        Bucket bucket = buckets.computeIfAbsent(expiresAtEpochSeconds / bucketSeconds,
+                id -> new Bucket(expectedPerBucket, falsePositiveRate));
+        // Exact set first, so a bloom hit always finds its entry
+        bucket.tokenIds.put(tokenId, Boolean.TRUE);
+        bucket.filter.add(tokenId);
+    }
+
+    /**
+     * Whether a token has been revoked; tokens without a jti (issued before revocation support) never are
+     */
+    public boolean isRevoked(String tokenId, Long expiresAtEpochSeconds) {
+        if (tokenId == null || expiresAtEpochSeconds == null || buckets.isEmpty()) {
+            return false;
+        }
+        Bucket bucket = buckets.get(expiresAtEpochSeconds / bucketSeconds);
+        return bucket != null && bucket.filter.mightContain(tokenId) && bucket.tokenIds.containsKey(tokenId);
+    }
+
+    /**
+     * Revoked tokens that have not yet been pruned
+     */
+    public int size() {
+        int size = 0;
+        for (Bucket bucket : buckets.values()) {
+            size += bucket.tokenIds.size();
+        }
+        return size;
+    }
+
+    /**
+     * Drop buckets whose tokens have all expired
+     */
+    @Scheduled(fixedDelayString = "${natwest.auth.revocation.prune-interval-ms:60000}")
+    public void prune() {
+        long currentBucket = nowEpochSeconds() / bucketSeconds;
+        int pruned = 0;
+        for (Iterator<Map.Entry<Long, Bucket>> it = buckets.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Bucket> entry = it.next();
+            if (entry.getKey() < currentBucket) {
+                pruned += entry.getValue().tokenIds.size();
+                it.remove();
+            }
+        }
+        if (pruned > 0) {
+            log.debug("Pruned {} expired revocations", pruned);
+        }
+    }
+
+    private static long nowEpochSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
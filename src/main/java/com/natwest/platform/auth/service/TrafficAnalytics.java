@@ -0,0 +1,99 @@
+package com.natwest.platform.auth.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tenant and per-client traffic analytics with bounded memory.
+ * Uses heavy-hitter sketches instead of metric tags, so the number of
+ * registered clients never affects memory or metrics cardinality.
+ */
+@Service
+public class TrafficAnalytics {
+
+    /**
+     * Tracked request types
+     */
+    public enum Operation { TOKEN, INTROSPECTION }
+
+    /**
+     * Dimensions each operation is broken down by
+     */
+    public enum Dimension { TENANT, CLIENT }
+
+    @Value("${natwest.auth.analytics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${natwest.auth.analytics.top-k:20}")
+    private int topK;
+
+    @Value("${natwest.auth.analytics.sketch-width:2048}")
+    private int sketchWidth;
+
+    @Value("${natwest.auth.analytics.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${natwest.auth.analytics.window-seconds:60}")
+    private long windowSeconds;
+
+    private final Map<Operation, Map<Dimension, HeavyHitterTracker>> trackers = new EnumMap<>(Operation.class);
+
+    @PostConstruct
+    void init() {
+        for (Operation operation : Operation.values()) {
+            Map<Dimension, HeavyHitterTracker> byDimension = new EnumMap<>(Dimension.class);
+            for (Dimension dimension : Dimension.values()) {
+                byDimension.put(dimension, new HeavyHitterTracker(topK, sketchWidth, sketchDepth,
+                        TimeUnit.SECONDS.toNanos(windowSeconds)));
+            }
+            trackers.put(operation, byDimension);
+        }
+    }
+
+    /**
+     * Count one request for a tenant and client
+     */
+    public void record(Operation operation, String tenantId, String clientId) {
+        if (!enabled) {
+            return;
+        }
+        Map<Dimension, HeavyHitterTracker> byDimension = trackers.get(operation);
+        byDimension.get(Dimension.TENANT).record(tenantId);
+        byDimension.get(Dimension.CLIENT).record(clientId);
+    }
+
+    /**
+     * Top consumers for an operation and dimension over the last one to two windows
+     */
+    public List<HeavyHitter> top(Operation operation, Dimension dimension, int limit) {
+        return tracker(operation, dimension).top(Math.min(limit, topK));
+    }
+
+    /**
+     * Exact number of requests over the span reported by top()
+     */
+    public long totalRequests(Operation operation, Dimension dimension) {
+        return tracker(operation, dimension).total();
+    }
+
+    /**
+     * Seconds of traffic covered by top() and totalRequests()
+     */
+    public double coveredSeconds(Operation operation, Dimension dimension) {
+        return tracker(operation, dimension).windowSeconds();
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public int getTopK() { return topK; }
+
+    private HeavyHitterTracker tracker(Operation operation, Dimension dimension) {
+        return trackers.get(operation).get(dimension);
+    }
+}
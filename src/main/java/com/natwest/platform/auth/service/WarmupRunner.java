@@ -0,0 +1,144 @@
+package com.natwest.platform.auth.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exercises the token and introspection code paths synthetically before the pod takes traffic.
+ *
+ * Runs on ApplicationReadyEvent, after the CommandLineRunner has seeded data. Spring Boot only
+ * publishes ReadinessState.ACCEPTING_TRAFFIC once every ready listener has returned, so the
+ * readiness probe keeps refusing traffic until warm-up ends.
+ * Nothing here records last-used timestamps, traffic analytics or introspection cache entries.
+ */
+@Component
+public class WarmupRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final String WARMUP_CLIENT_ID = "warmup-client";
+
+    private static final String WARMUP_TENANT_ID = "warmup-tenant";
+
+    private static final String WARMUP_SCOPES = "read:accounts,write:transactions";
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ScopeRegistry scopeRegistry;
+
+    @Autowired
+    private OAuth2ClientRepository clientRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${natwest.auth.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${natwest.auth.warmup.batch-size:200}")
+    private int batchSize;
+
+    @Value("${natwest.auth.warmup.min-batches:5}")
+    private int minBatches;
+
+    @Value("${natwest.auth.warmup.settled-batches:3}")
+    private int settledBatches;
+
+    @Value("${natwest.auth.warmup.tolerance:0.1}")
+    private double tolerance;
+
+    @Value("${natwest.auth.warmup.max-duration-ms:15000}")
+    private long maxDurationMs;
+
+    /**
+     * Run warm-up batches until per-iteration latency settles or the time budget runs out
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + maxDurationMs * 1_000_000L;
+        ScopeSet allowed = scopeRegistry.toScopeSet(WARMUP_SCOPES);
+        double firstMeanNanos = 0;
+        double previousMeanNanos = 0;
+        double meanNanos = 0;
+        int batches = 0;
+        int stable = 0;
+
+        try {
+            while (System.nanoTime() < deadline) {
+                long batchStart = System.nanoTime();
+                for (int i = 0; i < batchSize; i++) {
+                    iteration(allowed, i);
+                }
+                meanNanos = (System.nanoTime() - batchStart) / (double) batchSize;
+                batches++;
+                if (batches == 1) {
+                    firstMeanNanos = meanNanos;
+                } else if (Math.abs(meanNanos - previousMeanNanos) <= previousMeanNanos * tolerance) {
+                    stable++;
+                } else {
+                    stable = 0;
+                }
+                previousMeanNanos = meanNanos;
+                if (batches >= minBatches && stable >= settledBatches) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            // Warm-up is an optimisation; never keep the pod out of service because of it
+            log.warn("Warm-up aborted after {} batches: {}", batches, e.getMessage());
+            return;
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        log.info("Warm-up {} after {} batches in {} ms: {} us/iteration (first batch {} us)",
+                stable >= settledBatches ? "settled" : "hit its time budget", batches, elapsedMs,
+                Math.round(meanNanos / 1000), Math.round(firstMeanNanos / 1000));
+    }
+
+    /**
+     * One pass over the request path: scope filtering, signing, verification,
+     * claim mapping, JSON serialisation and the client lookup queries
+     */
+    private void iteration(ScopeSet allowed, int i) throws Exception {
+        String scopes = scopeRegistry.grant(i % 2 == 0 ? null : "read:accounts", allowed, WARMUP_SCOPES);
+        long lifetimeSeconds = jwtService.tokenLifetimeSeconds(null);
+        String token = jwtService.generateToken(WARMUP_CLIENT_ID, WARMUP_TENANT_ID, scopes, lifetimeSeconds);
+
+        Claims claims = jwtService.extractClaims(token);
+        TokenIntrospection introspection = TokenIntrospection.fromClaims(claims);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("access_token", token);
+        response.put("token_type", "Bearer");
+        response.put("expires_in", lifetimeSeconds);
+        response.put("scope", scopes);
+        objectMapper.writeValueAsBytes(response);
+        objectMapper.writeValueAsBytes(introspection);
+
+        // Queries are cheaper than signing; a few per batch keep Hibernate's plans hot
+        if (i % 20 == 0) {
+            clientRepository.findByClientId(WARMUP_CLIENT_ID);
+            clientRepository.findSummaryByClientId(WARMUP_CLIENT_ID);
+            clientRepository.findSummariesAfter(0L, PageRequest.of(0, 1));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+-- Baseline schema, matching what Hibernate previously generated for OAuth2Client
+CREATE TABLE oauth2_clients (
+    id                            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    client_id                     VARCHAR(255) NOT NULL,
+    client_secret                 VARCHAR(255) NOT NULL,
+    client_name                   VARCHAR(255) NOT NULL,
+    tenant_id                     VARCHAR(255) NOT NULL,
+    scopes                        VARCHAR(255),
+    access_token_validity_seconds INTEGER,
+    status                        VARCHAR(255) NOT NULL,
+    created_at                    TIMESTAMP NOT NULL,
+    last_used_at                  TIMESTAMP,
+    CONSTRAINT uk_oauth2_clients_client_id UNIQUE (client_id)
+);
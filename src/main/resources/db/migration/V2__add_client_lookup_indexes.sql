@@ -0,0 +1,5 @@
+-- Tenant and status lookups (findByTenantId, findByStatus, findByTenantIdAndStatus).
+-- The composite index leads with tenant_id, so it also serves tenant-only lookups;
+-- a separate tenant_id index would only add write cost.
+CREATE INDEX idx_oauth2_clients_tenant_status ON oauth2_clients (tenant_id, status);
+CREATE INDEX idx_oauth2_clients_status ON oauth2_clients (status);
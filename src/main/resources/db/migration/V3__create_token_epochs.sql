@@ -0,0 +1,10 @@
+-- Token epochs per client and per tenant. Tokens carry the epochs current when they were
+-- issued; bumping a row revokes every earlier token for that client or tenant at once.
+-- Only bumped clients and tenants have a row (a missing row means epoch 0).
+CREATE TABLE token_epochs (
+    subject_type VARCHAR(16)  NOT NULL,
+    subject_id   VARCHAR(255) NOT NULL,
+    epoch        BIGINT       NOT NULL,
+    updated_at   TIMESTAMP    NOT NULL,
+    CONSTRAINT pk_token_epochs PRIMARY KEY (subject_type, subject_id)
+);
@@ -0,0 +1,13 @@
+-- Change feed polled by every replica to keep local caches in step (rows newer than
+-- the replica's last applied seq). change_value holds the new epoch for epoch changes
+-- and the token's exp (epoch seconds) for revocations.
+CREATE TABLE change_feed (
+    seq          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    change_type  VARCHAR(32)  NOT NULL,
+    subject_id   VARCHAR(255) NOT NULL,
+    change_value BIGINT,
+    created_at   TIMESTAMP    NOT NULL
+);
+
+-- Live revocations are reloaded at startup; pruning keeps them until the token expires
+CREATE INDEX idx_change_feed_type_value ON change_feed (change_type, change_value);
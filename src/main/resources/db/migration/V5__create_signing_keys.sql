@@ -0,0 +1,12 @@
+-- Rotated signing keys shared by every replica. Each key is published on the JWKS
+-- endpoint from the moment it is written and signs tokens from activate_at; the key
+-- before it keeps verifying for the overlap window. Key material is base64 encoded
+-- (PKCS#8 private / X.509 public, or the raw HMAC secret); encrypt it at rest in production.
+CREATE TABLE signing_keys (
+    kid         VARCHAR(128)  NOT NULL PRIMARY KEY,
+    algorithm   VARCHAR(16)   NOT NULL,
+    private_key VARCHAR(8192) NOT NULL,
+    public_key  VARCHAR(8192),
+    activate_at TIMESTAMP     NOT NULL,
+    created_at  TIMESTAMP     NOT NULL
+);
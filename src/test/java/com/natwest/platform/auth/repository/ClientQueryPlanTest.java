@@ -0,0 +1,92 @@
+package com.natwest.platform.auth.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression test for the client lookups on H2.
+ *
+ * Flyway builds the schema, a few thousand clients are seeded, and each lookup the
+ * repository issues must be planned on its index rather than a table scan.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ClientQueryPlanTest {
+
+    private static final int CLIENTS = 5000;
+
+    private static final int TENANTS = 50;
+
+    private static final String[] STATUSES = {"ACTIVE", "SUSPENDED", "DEPRECATED"};
+
+    private static final String SUMMARY_COLUMNS = "id, client_id, client_name, tenant_id, scopes, status, " +
+            "access_token_validity_seconds, created_at, last_used_at";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void seed() {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            rows.add(new Object[]{
+                String.format("plan-client-%05d", i), "not-a-real-hash", "Plan Client " + i,
+                String.format("tenant-%02d", i % TENANTS), "read:accounts", 3600,
+                STATUSES[i % STATUSES.length], now
+            });
+        }
+        jdbc.batchUpdate("INSERT INTO oauth2_clients (client_id, client_secret, client_name, tenant_id, scopes, " +
+                "access_token_validity_seconds, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbc.execute("ANALYZE");
+    }
+
+    @Test
+    void tenantLookupUsesTenantStatusIndex() {
+        assertPlannedOn("SELECT * FROM oauth2_clients WHERE tenant_id = 'tenant-07'",
+                "idx_oauth2_clients_tenant_status");
+    }
+
+    @Test
+    void statusLookupUsesStatusIndex() {
+        assertPlannedOn("SELECT * FROM oauth2_clients WHERE status = 'SUSPENDED'",
+                "idx_oauth2_clients_status");
+    }
+
+    @Test
+    void tenantAndStatusLookupUsesTenantStatusIndex() {
+        assertPlannedOn("SELECT * FROM oauth2_clients WHERE tenant_id = 'tenant-07' AND status = 'ACTIVE'",
+                "idx_oauth2_clients_tenant_status");
+    }
+
+    @Test
+    void keysetPageUsesPrimaryKey() {
+        assertPlannedOn("SELECT " + SUMMARY_COLUMNS + " FROM oauth2_clients WHERE id > 2500 ORDER BY id " +
+                "FETCH FIRST 50 ROWS ONLY", "primary_key");
+    }
+
+    @Test
+    void summaryByClientIdUsesClientIdConstraint() {
+        assertPlannedOn("SELECT " + SUMMARY_COLUMNS + " FROM oauth2_clients WHERE client_id = 'plan-client-00042'",
+                "uk_oauth2_clients_client_id");
+    }
+
+    private void assertPlannedOn(String sql, String index) {
+        String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class).toLowerCase(Locale.ROOT);
+        assertThat(plan).as("plan for %s", sql).contains(index).doesNotContain("tablescan");
+    }
+}
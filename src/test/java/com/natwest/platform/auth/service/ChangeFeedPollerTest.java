@@ -0,0 +1,133 @@
+package com.natwest.platform.auth.service;
+
+import com.natwest.platform.auth.service.ChangeFeed.Change;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Watermark advance and gap handling in ChangeFeedPoller, against a mocked feed
+ */
+class ChangeFeedPollerTest {
+
+    private static final int BATCH_SIZE = 500;
+
+    private ChangeFeed changeFeed;
+
+    private TokenEpochs tokenEpochs;
+
+    private ChangeFeedPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        changeFeed = mock(ChangeFeed.class);
+        tokenEpochs = mock(TokenEpochs.class);
+        when(changeFeed.latestSequence()).thenReturn(10L);
+        when(changeFeed.liveRevocations(anyLong())).thenReturn(Collections.emptyList());
+        when(changeFeed.readAfter(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+
+        poller = new ChangeFeedPoller();
+        ReflectionTestUtils.setField(poller, "changeFeed", changeFeed);
+        ReflectionTestUtils.setField(poller, "tokenEpochs", tokenEpochs);
+        ReflectionTestUtils.setField(poller, "clientRegistryCache", mock(ClientRegistryCache.class));
+        ReflectionTestUtils.setField(poller, "clientSecretVerifier", mock(ClientSecretVerifier.class));
+        ReflectionTestUtils.setField(poller, "revocationList", mock(TokenRevocationList.class));
+        ReflectionTestUtils.setField(poller, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(poller, "enabled", true);
+        ReflectionTestUtils.setField(poller, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(poller, "gapTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(poller, "retentionSeconds", 3600L);
+    }
+
+    @Test
+    void startupLoadsEpochsAfterTakingTheWatermark() {
+        poller.init();
+
+        InOrder order = inOrder(changeFeed, tokenEpochs);
+        order.verify(changeFeed).latestSequence();
+        order.verify(tokenEpochs).reload();
+    }
+
+    @Test
+    void watermarkAdvancesOverContiguousRows() {
+        poller.init();
+        when(changeFeed.readAfter(10L, BATCH_SIZE)).thenReturn(Arrays.asList(epoch(11, "a"), epoch(12, "b")));
+
+        poller.poll();
+        poller.poll();
+
+        verify(tokenEpochs).apply(TokenEpochs.Subject.CLIENT, "a", 11L);
+        verify(tokenEpochs).apply(TokenEpochs.Subject.CLIENT, "b", 12L);
+        verify(changeFeed).readAfter(12L, BATCH_SIZE);
+    }
+
+    @Test
+    void rowPastAGapIsAppliedOnceAndWatermarkWaitsForTheGap() {
+        poller.init();
+        when(changeFeed.readAfter(10L, BATCH_SIZE)).thenReturn(Arrays.asList(epoch(11, "a"), epoch(13, "c")));
+        poller.poll();
+
+        // 12 is still missing: the watermark stops at 11 and 13 is not applied again
+        when(changeFeed.readAfter(11L, BATCH_SIZE)).thenReturn(Collections.singletonList(epoch(13, "c")));
+        poller.poll();
+        verify(changeFeed).readAfter(11L, BATCH_SIZE);
+        verify(tokenEpochs, times(1)).apply(TokenEpochs.Subject.CLIENT, "c", 13L);
+
+        // 12 commits late: it is applied and the watermark moves past 13
+        when(changeFeed.readAfter(11L, BATCH_SIZE)).thenReturn(Arrays.asList(epoch(12, "b"), epoch(13, "c")));
+        poller.poll();
+        poller.poll();
+        verify(tokenEpochs).apply(TokenEpochs.Subject.CLIENT, "b", 12L);
+        verify(tokenEpochs, times(1)).apply(TokenEpochs.Subject.CLIENT, "c", 13L);
+        verify(changeFeed).readAfter(13L, BATCH_SIZE);
+    }
+
+    @Test
+    void gapIsSkippedOnceItOutlivesTheTimeout() throws InterruptedException {
+        ReflectionTestUtils.setField(poller, "gapTimeoutMs", 300L);
+        poller.init();
+        when(changeFeed.readAfter(10L, BATCH_SIZE)).thenReturn(Collections.singletonList(epoch(12, "b")));
+        poller.poll();
+        verify(changeFeed).readAfter(10L, BATCH_SIZE);
+
+        // Within the timeout the watermark stays below the gap
+        poller.poll();
+        verify(changeFeed, times(2)).readAfter(10L, BATCH_SIZE);
+
+        Thread.sleep(350);
+        poller.poll();
+        poller.poll();
+        verify(changeFeed).readAfter(12L, BATCH_SIZE);
+        verify(tokenEpochs, times(1)).apply(TokenEpochs.Subject.CLIENT, "b", 12L);
+    }
+
+    @Test
+    void failedReadLeavesWatermarkInPlace() {
+        poller.init();
+        when(changeFeed.readAfter(10L, BATCH_SIZE)).thenThrow(new IllegalStateException("database down"));
+        poller.poll();
+
+        doReturn(Collections.singletonList(epoch(11, "a"))).when(changeFeed).readAfter(eq(10L), anyInt());
+        poller.poll();
+        verify(tokenEpochs).apply(TokenEpochs.Subject.CLIENT, "a", 11L);
+    }
+
+    private static Change epoch(long seq, String clientId) {
+        return new Change(seq, ChangeFeed.Type.CLIENT_EPOCH, clientId, seq);
+    }
+}
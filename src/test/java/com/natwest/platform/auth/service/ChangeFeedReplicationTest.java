@@ -0,0 +1,232 @@
+package com.natwest.platform.auth.service;
+
+import com.natwest.platform.auth.AuthServerDemoApplication;
+import com.natwest.platform.auth.entity.OAuth2Client;
+import com.natwest.platform.auth.repository.OAuth2ClientRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Change feed propagation between two replicas sharing one H2 database.
+ *
+ * Each kind of change is made through one application context and must be reflected by
+ * the other within a few poll intervals: client status, jti revocation, client and tenant
+ * epochs, a replica started afterwards, a feed with a sequence gap, and a signing key rotation.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChangeFeedReplicationTest {
+
+    private static final String CLIENT_ID = "retail-payment-service";
+
+    private static final String CLIENT_SECRET = "payment-secret-2024";
+
+    private static final String TENANT_ID = "corporate-banking";
+
+    private static final String TENANT_CLIENT_ID = "corporate-treasury-service";
+
+    private static final String TENANT_CLIENT_SECRET = "treasury-secret-2024";
+
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private String[] properties;
+
+    private ConfigurableApplicationContext first;
+
+    private ConfigurableApplicationContext second;
+
+    @BeforeAll
+    void startReplicas() {
+        properties = new String[]{
+            "--spring.profiles.active=test",
+            "--spring.datasource.url=jdbc:h2:mem:replication-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+            "--natwest.auth.change-feed.poll-interval-ms=" + POLL_INTERVAL_MS,
+            // Rotate every few seconds, publishing each key two seconds before it signs
+            "--natwest.auth.jwt.jwks-max-age-seconds=1",
+            "--natwest.auth.jwt.rotation.check-interval-ms=" + POLL_INTERVAL_MS,
+            "--natwest.auth.jwt.rotation.publish-ahead-seconds=2",
+            "--natwest.auth.jwt.rotation.interval-seconds=4"
+        };
+        first = start();
+        second = start();
+    }
+
+    @AfterAll
+    void stopReplicas() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    void clientStatusChangeReachesOtherReplica() {
+        ClientRegistryCache secondClients = second.getBean(ClientRegistryCache.class);
+        assertThat(secondClients.findByClientId(CLIENT_ID).get().isActive()).isTrue();
+        try {
+            setStatus(first, OAuth2Client.ClientStatus.SUSPENDED);
+            assertThat(waitFor(() -> !secondClients.findByClientId(CLIENT_ID).get().isActive())).isTrue();
+        } finally {
+            setStatus(first, OAuth2Client.ClientStatus.ACTIVE);
+        }
+        assertThat(waitFor(() -> secondClients.findByClientId(CLIENT_ID).get().isActive())).isTrue();
+    }
+
+    @Test
+    void jtiRevocationReachesOtherReplica() {
+        OAuth2Service firstOAuth2 = first.getBean(OAuth2Service.class);
+        OAuth2Service secondOAuth2 = second.getBean(OAuth2Service.class);
+        String token = issue(firstOAuth2, CLIENT_ID, CLIENT_SECRET);
+        assertThat(active(secondOAuth2, token)).isTrue();
+
+        firstOAuth2.revokeToken(CLIENT_ID, CLIENT_SECRET, token);
+
+        assertThat(waitFor(() -> !active(secondOAuth2, token))).isTrue();
+    }
+
+    @Test
+    void clientEpochBumpReachesOtherReplica() {
+        OAuth2Service firstOAuth2 = first.getBean(OAuth2Service.class);
+        OAuth2Service secondOAuth2 = second.getBean(OAuth2Service.class);
+        String before = issue(firstOAuth2, CLIENT_ID, CLIENT_SECRET);
+        assertThat(active(secondOAuth2, before)).isTrue();
+
+        first.getBean(TokenEpochs.class).bump(TokenEpochs.Subject.CLIENT, CLIENT_ID);
+
+        assertThat(waitFor(() -> !active(secondOAuth2, before))).isTrue();
+        String after = issue(secondOAuth2, CLIENT_ID, CLIENT_SECRET);
+        assertThat(active(firstOAuth2, after)).isTrue();
+        assertThat(active(secondOAuth2, after)).isTrue();
+    }
+
+    @Test
+    void tenantEpochBumpReachesOtherReplica() {
+        OAuth2Service firstOAuth2 = first.getBean(OAuth2Service.class);
+        OAuth2Service secondOAuth2 = second.getBean(OAuth2Service.class);
+        String before = issue(secondOAuth2, TENANT_CLIENT_ID, TENANT_CLIENT_SECRET);
+        assertThat(active(firstOAuth2, before)).isTrue();
+
+        second.getBean(TokenEpochs.class).bump(TokenEpochs.Subject.TENANT, TENANT_ID);
+
+        assertThat(waitFor(() -> !active(firstOAuth2, before))).isTrue();
+        String after = issue(firstOAuth2, TENANT_CLIENT_ID, TENANT_CLIENT_SECRET);
+        assertThat(active(firstOAuth2, after)).isTrue();
+        assertThat(active(secondOAuth2, after)).isTrue();
+    }
+
+    @Test
+    void lateReplicaLoadsRevocationsAndEpochs() {
+        OAuth2Service firstOAuth2 = first.getBean(OAuth2Service.class);
+        String revoked = issue(firstOAuth2, CLIENT_ID, CLIENT_SECRET);
+        firstOAuth2.revokeToken(CLIENT_ID, CLIENT_SECRET, revoked);
+        String beforeBump = issue(firstOAuth2, CLIENT_ID, CLIENT_SECRET);
+        first.getBean(TokenEpochs.class).bump(TokenEpochs.Subject.CLIENT, CLIENT_ID);
+        String current = issue(firstOAuth2, CLIENT_ID, CLIENT_SECRET);
+
+        try (ConfigurableApplicationContext late = start()) {
+            OAuth2Service lateOAuth2 = late.getBean(OAuth2Service.class);
+            assertThat(active(lateOAuth2, revoked)).isFalse();
+            assertThat(active(lateOAuth2, beforeBump)).isFalse();
+            assertThat(active(lateOAuth2, current)).isTrue();
+        }
+    }
+
+    @Test
+    void rowsPastAGapAreAppliedAndTheLateRowIsNotLost() {
+        JdbcTemplate jdbc = first.getBean(JdbcTemplate.class);
+        TokenEpochs secondEpochs = second.getBean(TokenEpochs.class);
+        Long latest = jdbc.queryForObject("SELECT MAX(seq) FROM change_feed", Long.class);
+        long base = latest != null ? latest : 0L;
+        String insert = "INSERT INTO change_feed (seq, change_type, subject_id, change_value, created_at) " +
+                "VALUES (?, ?, ?, ?, ?)";
+
+        // Leave base + 1 and base + 2 unwritten, as an uncommitted insert would
+        jdbc.update(insert, base + 3, ChangeFeed.Type.CLIENT_EPOCH.name(), "gap-client", 7L,
+                Timestamp.from(Instant.now()));
+        assertThat(waitFor(() -> secondEpochs.clientEpoch("gap-client") == 7)).isTrue();
+
+        jdbc.update(insert, base + 1, ChangeFeed.Type.TENANT_EPOCH.name(), "gap-tenant", 3L,
+                Timestamp.from(Instant.now()));
+        assertThat(waitFor(() -> secondEpochs.tenantEpoch("gap-tenant") == 3)).isTrue();
+
+        // Keep later identity values clear of the rows written by hand
+        jdbc.execute("ALTER TABLE change_feed ALTER COLUMN seq RESTART WITH " + (base + 4));
+    }
+
+    @Test
+    void rotatedKeyIsKnownToOtherReplicaBeforeItSigns() {
+        JdbcTemplate jdbc = first.getBean(JdbcTemplate.class);
+        JwtKeyRing firstKeys = first.getBean(JwtKeyRing.class);
+        JwtKeyRing secondKeys = second.getBean(JwtKeyRing.class);
+        String[] pending = new String[1];
+
+        assertThat(waitFor(() -> {
+            List<String> kids = jdbc.queryForList("SELECT kid FROM signing_keys WHERE activate_at > ?",
+                    String.class, Timestamp.from(Instant.now().plusSeconds(1)));
+            pending[0] = kids.isEmpty() ? null : kids.get(0);
+            return pending[0] != null;
+        })).as("next key published").isTrue();
+
+        String alg = firstKeys.getSigningKey().getAlgorithm().getValue();
+        assertThat(waitFor(() -> secondKeys.getVerificationKey(pending[0], alg) != null)).isTrue();
+        assertThat(firstKeys.getSigningKey().getKid()).isNotEqualTo(pending[0]);
+        assertThat(secondKeys.getSigningKey().getKid()).isNotEqualTo(pending[0]);
+
+        assertThat(waitFor(() -> pending[0].equals(firstKeys.getSigningKey().getKid()))).isTrue();
+        String token = issue(first.getBean(OAuth2Service.class), CLIENT_ID, CLIENT_SECRET);
+        assertThat(active(second.getBean(OAuth2Service.class), token)).isTrue();
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(AuthServerDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(properties);
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condition.getAsBoolean();
+    }
+
+    private static void setStatus(ConfigurableApplicationContext context, OAuth2Client.ClientStatus status) {
+        OAuth2ClientRepository repository = context.getBean(OAuth2ClientRepository.class);
+        OAuth2Client client = repository.findByClientId(CLIENT_ID).get();
+        client.setStatus(status);
+        repository.save(client);
+        context.getBean(ClientRegistryCache.class).invalidate(CLIENT_ID);
+        context.getBean(ChangeFeed.class).publish(ChangeFeed.Type.CLIENT, CLIENT_ID);
+    }
+
+    private static String issue(OAuth2Service oauth2Service, String clientId, String clientSecret) {
+        return (String) oauth2Service.clientCredentialsGrant(clientId, clientSecret, null).get("access_token");
+    }
+
+    private static boolean active(OAuth2Service oauth2Service, String token) {
+        return oauth2Service.introspectToken(token).isActive();
+    }
+}
@@ -0,0 +1,128 @@
+package com.natwest.platform.auth.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tokens from CompactJwtEncoder must parse with jjwt and match what the jjwt builder produces
+ */
+class CompactJwtEncoderTest {
+
+    private static final String ISSUER = "http://localhost:9000/auth";
+
+    // Whole seconds, as the encoder writes iat and exp, and recent enough for the parser's expiry check
+    private static final long ISSUED_AT = System.currentTimeMillis() / 1000 * 1000;
+
+    private static final long EXPIRES_AT = ISSUED_AT + 3_600_000L;
+
+    private final CompactJwtEncoder encoder = new CompactJwtEncoder();
+
+    @ParameterizedTest
+    @EnumSource(value = SignatureAlgorithm.class, names = {"HS256", "RS256", "ES256"})
+    void tokensParseWithJjwt(SignatureAlgorithm algorithm) {
+        JwtSigningKey key = JwtSigningKey.generate("test-key", algorithm);
+
+        String token = encoder.encode(key, "client-1", "tenant-1", "read:accounts write:transactions",
+                ISSUER, ISSUED_AT, EXPIRES_AT, "jti-1", 3, 0);
+
+        Claims claims = parse(key, token);
+        assertThat(claims.getSubject()).isEqualTo("client-1");
+        assertThat(claims.get("client_id", String.class)).isEqualTo("client-1");
+        assertThat(claims.get("tenant_id", String.class)).isEqualTo("tenant-1");
+        assertThat(claims.get("scope", String.class)).isEqualTo("read:accounts write:transactions");
+        assertThat(claims.get("token_type", String.class)).isEqualTo("Bearer");
+        assertThat(claims.getIssuer()).isEqualTo(ISSUER);
+        assertThat(claims.getIssuedAt()).isEqualTo(new Date(ISSUED_AT));
+        assertThat(claims.getExpiration()).isEqualTo(new Date(EXPIRES_AT));
+        assertThat(claims.getId()).isEqualTo("jti-1");
+        assertThat(claims.get("client_epoch", Long.class)).isEqualTo(3L);
+        assertThat(claims).doesNotContainKey("tenant_epoch");
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SignatureAlgorithm.class, names = {"HS256", "RS256"})
+    void outputMatchesTheJjwtBuilder(SignatureAlgorithm algorithm) {
+        // Both HS256 and RSASSA-PKCS1-v1_5 signatures are deterministic, so whole tokens compare
+        JwtSigningKey key = JwtSigningKey.generate("test-key", algorithm);
+
+        String token = encoder.encode(key, "client-1", "tenant-é", "read:accounts",
+                ISSUER, ISSUED_AT, EXPIRES_AT, "jti-1", 0, 0);
+
+        assertThat(token).isEqualTo(buildWithJjwt(key, "client-1", "tenant-é", "read:accounts", "jti-1"));
+    }
+
+    @Test
+    void nonAsciiAndEscapedClaimValuesRoundTrip() {
+        JwtSigningKey key = JwtSigningKey.generate("test-key", SignatureAlgorithm.HS256);
+        String tenant = "tenant-é-租户-😀";
+        String scope = "quote\" backslash\\ tab\t newline\n bell\u0007";
+
+        String token = encoder.encode(key, "client-ü", tenant, scope, ISSUER, ISSUED_AT, EXPIRES_AT, "jti-1", 0, 0);
+
+        Claims claims = parse(key, token);
+        assertThat(claims.get("tenant_id", String.class)).isEqualTo(tenant);
+        assertThat(claims.get("scope", String.class)).isEqualTo(scope);
+        assertThat(claims.getSubject()).isEqualTo("client-ü");
+        assertThat(token).isEqualTo(buildWithJjwt(key, "client-ü", tenant, scope, "jti-1"));
+    }
+
+    @Test
+    void buffersAreReusedWithoutLeakingEarlierTokens() {
+        JwtSigningKey hmac = JwtSigningKey.generate("hmac-key", SignatureAlgorithm.HS256);
+        JwtSigningKey rsa = JwtSigningKey.generate("rsa-key", SignatureAlgorithm.RS256);
+        StringBuilder longScope = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            longScope.append("scope:").append(i).append(' ');
+        }
+
+        // Grow the per-thread buffers, then encode shorter tokens with the same and another key
+        String large = encoder.encode(hmac, "client-1", "tenant-1", longScope.toString(),
+                ISSUER, ISSUED_AT, EXPIRES_AT, "jti-large", 0, 0);
+        String small = encoder.encode(hmac, "c", "t", "s", ISSUER, ISSUED_AT, EXPIRES_AT, "jti-small", 0, 0);
+        String switched = encoder.encode(rsa, "c", "t", "s", ISSUER, ISSUED_AT, EXPIRES_AT, "jti-rsa", 0, 0);
+        String back = encoder.encode(hmac, "c", "t", "s", ISSUER, ISSUED_AT, EXPIRES_AT, "jti-small", 0, 0);
+
+        assertThat(parse(hmac, large).get("scope", String.class)).isEqualTo(longScope.toString());
+        assertThat(parse(hmac, small).get("scope", String.class)).isEqualTo("s");
+        assertThat(parse(rsa, switched).getId()).isEqualTo("jti-rsa");
+        assertThat(back).isEqualTo(small);
+        assertThat(small).isEqualTo(buildWithJjwt(hmac, "c", "t", "s", "jti-small"));
+    }
+
+    private static Claims parse(JwtSigningKey key, String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(key.getVerificationKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static String buildWithJjwt(JwtSigningKey key, String clientId, String tenantId, String scope,
+                                         String tokenId) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("tenant_id", tenantId);
+        claims.put("scope", scope);
+        claims.put("token_type", "Bearer");
+        claims.put("client_id", clientId);
+        return Jwts.builder()
+                .setHeaderParam("kid", key.getKid())
+                .setClaims(claims)
+                .setSubject(clientId)
+                .setIssuer(ISSUER)
+                .setIssuedAt(new Date(ISSUED_AT))
+                .setExpiration(new Date(EXPIRES_AT))
+                .setId(tokenId)
+                .signWith(key.getSigningKey(), key.getAlgorithm())
+                .compact();
+    }
+}
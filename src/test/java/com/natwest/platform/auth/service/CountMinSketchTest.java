@@ -0,0 +1,62 @@
+package com.natwest.platform.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Count-min estimates never undercount and overcount within the sketch's error bound
+ */
+class CountMinSketchTest {
+
+    private static final int WIDTH = 1024;
+
+    private static final int DEPTH = 4;
+
+    @Test
+    void estimatesStayWithinTheOverestimateBound() {
+        CountMinSketch sketch = new CountMinSketch(WIDTH, DEPTH);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        int events = 100_000;
+        for (int i = 0; i < events; i++) {
+            // Skewed towards low client numbers, like real traffic
+            int client = (int) Math.floor(Math.pow(random.nextDouble(), 3) * 10_000);
+            String key = "client-" + client;
+            exact.merge(key, 1L, Long::sum);
+            assertThat(sketch.add(key)).isGreaterThanOrEqualTo(exact.get(key));
+        }
+
+        // Each estimate exceeds the true count by at most e * events / width, except with probability e^-depth
+        long bound = (long) Math.ceil(Math.E * events / WIDTH);
+        int outside = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertThat(estimate).as(entry.getKey()).isGreaterThanOrEqualTo(entry.getValue());
+            if (estimate - entry.getValue() > bound) {
+                outside++;
+            }
+        }
+        assertThat((double) outside / exact.size()).isLessThanOrEqualTo(2 * Math.exp(-DEPTH));
+    }
+
+    @Test
+    void similarKeysDoNotShareEveryCell() {
+        CountMinSketch sketch = new CountMinSketch(WIDTH, DEPTH);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("client-1");
+        }
+
+        // Keys differing in one character hash independently, so none inherits the heavy count
+        for (int i = 0; i < 1000; i++) {
+            if (i != 1) {
+                assertThat(sketch.estimate("client-" + i)).as("client-" + i).isZero();
+            }
+        }
+        assertThat(sketch.estimate("client-1")).isEqualTo(1000);
+    }
+}
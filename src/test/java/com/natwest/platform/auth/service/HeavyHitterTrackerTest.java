@@ -0,0 +1,67 @@
+package com.natwest.platform.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Top-K candidate admission and eviction within one interval
+ */
+class HeavyHitterTrackerTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    void heavierKeyEvictsTheLightestCandidate() {
+        HeavyHitterTracker tracker = new HeavyHitterTracker(3, 1024, 4, WINDOW_NANOS);
+        record(tracker, "a", 10);
+        record(tracker, "b", 20);
+        record(tracker, "c", 30);
+
+        record(tracker, "d", 15);
+
+        assertThat(keys(tracker.top(10))).containsExactly("c", "b", "d");
+        assertThat(tracker.top(1).get(0).getRequests()).isEqualTo(30);
+        assertThat(tracker.total()).isEqualTo(75);
+    }
+
+    @Test
+    void keysBelowTheFloorAreNotAdmitted() {
+        HeavyHitterTracker tracker = new HeavyHitterTracker(3, 1024, 4, WINDOW_NANOS);
+        record(tracker, "a", 10);
+        record(tracker, "b", 20);
+        record(tracker, "c", 30);
+
+        // A long tail of light keys never displaces the candidates
+        for (int i = 0; i < 500; i++) {
+            record(tracker, "tail-" + i, 3);
+        }
+
+        assertThat(keys(tracker.top(10))).containsExactly("c", "b", "a");
+        assertThat(tracker.total()).isEqualTo(60 + 500 * 3);
+    }
+
+    @Test
+    void limitTruncatesTheRanking() {
+        HeavyHitterTracker tracker = new HeavyHitterTracker(5, 1024, 4, WINDOW_NANOS);
+        for (int i = 1; i <= 5; i++) {
+            record(tracker, "key-" + i, i * 10);
+        }
+
+        assertThat(keys(tracker.top(2))).containsExactly("key-5", "key-4");
+    }
+
+    private static void record(HeavyHitterTracker tracker, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(key);
+        }
+    }
+
+    private static List<String> keys(List<HeavyHitter> hitters) {
+        return hitters.stream().map(HeavyHitter::getKey).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,117 @@
+package com.natwest.platform.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bitset scope grants agree with the string-based check they replaced
+ */
+class ScopeRegistryTest {
+
+    private static final String[] KNOWN = {
+        "read:accounts", "write:transactions", "read:transactions", "write:payments", "read:balances",
+        "admin:clients", "read:audit", "write:audit", "read:fx", "write:fx", "read:cards", "write:cards"
+    };
+
+    private static final String[] UNKNOWN = {"read:secrets", "write:everything", "READ:ACCOUNTS", "read"};
+
+    private static final String[] SEPARATORS = {",", " ", ", ", "\t", "\n", " ,  "};
+
+    @Test
+    void grantMatchesStringBasedCheckOnRandomInputs() {
+        ScopeRegistry registry = new ScopeRegistry();
+        Random random = new Random(7);
+        for (int run = 0; run < 20_000; run++) {
+            String allowedScopes = String.join(",", pick(random, KNOWN, random.nextInt(KNOWN.length + 1)));
+            ScopeSet allowed = registry.toScopeSet(allowedScopes);
+            String requested = requested(random);
+
+            assertThat(registry.grant(requested, allowed, allowedScopes))
+                    .as("requested [%s] allowed [%s]", requested, allowedScopes)
+                    .isEqualTo(stringBasedGrant(requested, allowedScopes));
+        }
+    }
+
+    @Test
+    void unknownRequestedScopesAreNotInterned() {
+        ScopeRegistry registry = new ScopeRegistry();
+        ScopeSet allowed = registry.toScopeSet("read:accounts,write:transactions");
+
+        assertThat(registry.grant("read:accounts not:a:scope", allowed, "read:accounts,write:transactions"))
+                .isEqualTo("read:accounts");
+        assertThat(registry.idOf("not:a:scope")).isEqualTo(-1);
+    }
+
+    @Test
+    void missingRequestGrantsEveryAllowedScope() {
+        ScopeRegistry registry = new ScopeRegistry();
+        ScopeSet allowed = registry.toScopeSet("read:accounts,write:transactions");
+
+        assertThat(registry.grant(null, allowed, "read:accounts,write:transactions"))
+                .isEqualTo("read:accounts,write:transactions");
+        assertThat(registry.grant(" \t", allowed, "read:accounts,write:transactions"))
+                .isEqualTo("read:accounts,write:transactions");
+    }
+
+    private static String requested(Random random) {
+        StringBuilder requested = new StringBuilder();
+        if (random.nextInt(4) == 0) {
+            requested.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        int tokens = 1 + random.nextInt(6);
+        for (int i = 0; i < tokens; i++) {
+            if (i > 0) {
+                requested.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            }
+            String[] source = random.nextInt(4) == 0 ? UNKNOWN : KNOWN;
+            requested.append(source[random.nextInt(source.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            requested.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        return requested.toString();
+    }
+
+    private static List<String> pick(Random random, String[] scopes, int count) {
+        List<String> picked = new ArrayList<>();
+        for (String scope : scopes) {
+            if (picked.size() < count && random.nextBoolean()) {
+                picked.add(scope);
+            }
+        }
+        return picked;
+    }
+
+    /**
+     * The nested-loop check OAuth2Service used before scope ids, with repeated scopes granted once
+     */
+    private static String stringBasedGrant(String requestedScopes, String allowedScopes) {
+        if (requestedScopes == null || requestedScopes.trim().isEmpty()) {
+            return allowedScopes;
+        }
+        if (allowedScopes == null || allowedScopes.trim().isEmpty()) {
+            return "";
+        }
+
+        String[] requested = requestedScopes.split("[,\\s]+");
+        String[] allowed = allowedScopes.split("[,\\s]+");
+
+        Set<String> granted = new LinkedHashSet<>();
+        for (String requestedScope : requested) {
+            for (String allowedScope : allowed) {
+                if (requestedScope.trim().equals(allowedScope.trim())) {
+                    granted.add(requestedScope.trim());
+                    break;
+                }
+            }
+        }
+        return String.join(",", granted);
+    }
+}
@@ -0,0 +1,180 @@
+package com.natwest.platform.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Single-flight joining, the reuse window and the reusable predicate of TokenRequestCoalescer
+ */
+class TokenRequestCoalescerTest {
+
+    private static final int THREADS = 16;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    private final AtomicInteger mints = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalRequestsMintOnce() throws Exception {
+        TokenRequestCoalescer coalescer = coalescer(0);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Map<String, Object>> grant = () -> {
+            await(release);
+            return mint();
+        };
+
+        List<Future<Map<String, Object>>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> coalescer.execute("client", "secret", "read", grant, r -> true)));
+        }
+        // Hold the first grant until every other request has joined it
+        long deadline = System.currentTimeMillis() + 5000;
+        while (joined() < THREADS - 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        for (Future<Map<String, Object>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).get("access_token")).isEqualTo("token-1");
+        }
+        assertThat(mints.get()).isEqualTo(1);
+        assertThat(joined()).isEqualTo(THREADS - 1);
+    }
+
+    @Test
+    void differentCredentialsOrScopesAreNotCoalesced() {
+        TokenRequestCoalescer coalescer = coalescer(60_000);
+
+        coalescer.execute("client", "secret", "read", this::mint, r -> true);
+        coalescer.execute("client", "secret", "write", this::mint, r -> true);
+        coalescer.execute("client", "other-secret", "read", this::mint, r -> true);
+        coalescer.execute("other-client", "secret", "read", this::mint, r -> true);
+
+        assertThat(mints.get()).isEqualTo(4);
+    }
+
+    @Test
+    void responseIsReusedOnlyWithinTheWindow() throws InterruptedException {
+        TokenRequestCoalescer coalescer = coalescer(200);
+
+        Map<String, Object> first = coalescer.execute("client", "secret", "read", this::mint, r -> true);
+        Map<String, Object> reused = coalescer.execute("client", "secret", "read", this::mint, r -> true);
+        assertThat(reused.get("access_token")).isEqualTo(first.get("access_token"));
+        assertThat((Long) reused.get("expires_in")).isBetween(3599L, 3600L);
+
+        Thread.sleep(300);
+        Map<String, Object> fresh = coalescer.execute("client", "secret", "read", this::mint, r -> true);
+        assertThat(fresh.get("access_token")).isEqualTo("token-2");
+        assertThat(mints.get()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedResponseIsReplacedByANewGrant() {
+        TokenRequestCoalescer coalescer = coalescer(60_000);
+        coalescer.execute("client", "secret", "read", this::mint, r -> true);
+
+        Map<String, Object> replaced = coalescer.execute("client", "secret", "read", this::mint, r -> false);
+        Map<String, Object> reused = coalescer.execute("client", "secret", "read", this::mint, r -> true);
+
+        assertThat(replaced.get("access_token")).isEqualTo("token-2");
+        assertThat(reused.get("access_token")).isEqualTo("token-2");
+        assertThat(mints.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failureIsSharedWithWaitersButNotReused() throws Exception {
+        TokenRequestCoalescer coalescer = coalescer(60_000);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Map<String, Object>> failing = () -> {
+            mints.incrementAndGet();
+            await(release);
+            throw new IllegalArgumentException("invalid_client");
+        };
+
+        Future<Map<String, Object>> leader = executor.submit(() ->
+                coalescer.execute("client", "wrong", "read", failing, r -> true));
+        while (mints.get() == 0) {
+            Thread.sleep(5);
+        }
+        Future<Map<String, Object>> waiter = executor.submit(() ->
+                coalescer.execute("client", "wrong", "read", failing, r -> true));
+        while (joined() == 0) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> coalescer.execute("client", "wrong", "read", failing, r -> true))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(mints.get()).isEqualTo(2);
+    }
+
+    private TokenRequestCoalescer coalescer(long reuseWindowMs) {
+        ClientSecretVerifier verifier = mock(ClientSecretVerifier.class);
+        when(verifier.credentialKey(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0) + ":" + invocation.getArgument(1));
+
+        TokenRequestCoalescer coalescer = new TokenRequestCoalescer();
+        ReflectionTestUtils.setField(coalescer, "clientSecretVerifier", verifier);
+        ReflectionTestUtils.setField(coalescer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        ReflectionTestUtils.setField(coalescer, "reuseWindowMs", reuseWindowMs);
+        ReflectionTestUtils.setField(coalescer, "maximumSize", 100L);
+        coalescer.init();
+        return coalescer;
+    }
+
+    private Map<String, Object> mint() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("access_token", "token-" + mints.incrementAndGet());
+        response.put("expires_in", 3600L);
+        return response;
+    }
+
+    private double joined() {
+        return meterRegistry.get("oauth2.token.coalesced").tag("outcome", "joined_in_flight").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
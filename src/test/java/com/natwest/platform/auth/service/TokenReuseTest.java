@@ -0,0 +1,73 @@
+package com.natwest.platform.auth.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A recently issued token is handed out again only while it would still introspect as active
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "natwest.auth.token-coalescing.reuse-window-ms=60000")
+@ActiveProfiles("test")
+class TokenReuseTest {
+
+    private static final String CLIENT_ID = "retail-payment-service";
+
+    private static final String CLIENT_SECRET = "payment-secret-2024";
+
+    private static final String TENANT_ID = "retail-banking";
+
+    @Autowired
+    private OAuth2Service oauth2Service;
+
+    @Autowired
+    private TokenEpochs tokenEpochs;
+
+    @Test
+    void tokenIsReusedWithinTheWindow() {
+        String first = issue("read:accounts");
+
+        assertThat(issue("read:accounts")).isEqualTo(first);
+    }
+
+    @Test
+    void revokedTokenIsNotReused() {
+        String first = issue("write:transactions");
+        oauth2Service.revokeToken(CLIENT_ID, CLIENT_SECRET, first);
+
+        String next = issue("write:transactions");
+
+        assertThat(next).isNotEqualTo(first);
+        assertThat(oauth2Service.introspectToken(next).isActive()).isTrue();
+    }
+
+    @Test
+    void tokenIsNotReusedAfterAClientEpochBump() {
+        String first = issue("read:accounts write:transactions");
+        tokenEpochs.bump(TokenEpochs.Subject.CLIENT, CLIENT_ID);
+
+        String next = issue("read:accounts write:transactions");
+
+        assertThat(next).isNotEqualTo(first);
+        assertThat(oauth2Service.introspectToken(next).isActive()).isTrue();
+    }
+
+    @Test
+    void tokenIsNotReusedAfterATenantEpochBump() {
+        String first = issue(null);
+        tokenEpochs.bump(TokenEpochs.Subject.TENANT, TENANT_ID);
+
+        String next = issue(null);
+
+        assertThat(next).isNotEqualTo(first);
+        assertThat(oauth2Service.introspectToken(next).isActive()).isTrue();
+    }
+
+    private String issue(String scope) {
+        return (String) oauth2Service.clientCredentialsGrant(CLIENT_ID, CLIENT_SECRET, scope).get("access_token");
+    }
+}
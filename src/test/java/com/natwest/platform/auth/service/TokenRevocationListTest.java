@@ -0,0 +1,117 @@
+package com.natwest.platform.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Revocation lookups through the bloom filter and exact set, and bucket pruning by expiry
+ */
+class TokenRevocationListTest {
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    @Test
+    void everyRevokedTokenIsReportedRevoked() {
+        TokenRevocationList revocations = revocationList(300, 1000, 0.001);
+        List<String> tokenIds = new ArrayList<>();
+        long now = now();
+        for (int i = 0; i < 20_000; i++) {
+            String tokenId = UUID.randomUUID().toString();
+            tokenIds.add(tokenId);
+            // Spread expiries across several buckets and overfill each filter
+            revocations.revoke(tokenId, now + 60 + i % 3600);
+        }
+
+        for (int i = 0; i < tokenIds.size(); i++) {
+            assertThat(revocations.isRevoked(tokenIds.get(i), now + 60 + i % 3600)).as(tokenIds.get(i)).isTrue();
+        }
+        assertThat(revocations.size()).isEqualTo(tokenIds.size());
+    }
+
+    @Test
+    void unrevokedTokensAreNotReported() {
+        TokenRevocationList revocations = revocationList(300, 1000, 0.001);
+        long exp = now() + 600;
+        revocations.revoke("revoked", exp);
+
+        assertThat(revocations.isRevoked("live", exp)).isFalse();
+        assertThat(revocations.isRevoked("revoked", exp + 3600)).isFalse();
+        assertThat(revocations.isRevoked(null, exp)).isFalse();
+        assertThat(revocations.isRevoked("revoked", null)).isFalse();
+    }
+
+    @Test
+    void exactSetDecidesWhenTheBloomFilterReportsAHit() {
+        // A tiny filter sized for one key saturates quickly, so most probes are bloom hits
+        int expected = 1;
+        double rate = 0.5;
+        TokenRevocationList revocations = revocationList(300, expected, rate);
+        BloomFilter shadow = new BloomFilter(expected, rate);
+        long exp = now() + 600;
+        for (int i = 0; i < 50; i++) {
+            revocations.revoke("revoked-" + i, exp);
+            shadow.add("revoked-" + i);
+        }
+
+        // The shadow filter holds the same keys with the same parameters, so it probes identically
+        int bloomHits = 0;
+        for (int i = 0; i < 1000; i++) {
+            String tokenId = "live-" + i;
+            if (shadow.mightContain(tokenId)) {
+                bloomHits++;
+                assertThat(revocations.isRevoked(tokenId, exp)).as(tokenId).isFalse();
+            }
+        }
+        assertThat(bloomHits).isGreaterThan(0);
+    }
+
+    @Test
+    void expiredTokensAreIgnored() {
+        TokenRevocationList revocations = revocationList(300, 1000, 0.001);
+
+        revocations.revoke("expired", now() - 1);
+
+        assertThat(revocations.size()).isZero();
+    }
+
+    @Test
+    void bucketIsPrunedOnlyAfterItsTokensExpire() throws InterruptedException {
+        TokenRevocationList revocations = revocationList(1, 1000, 0.001);
+        long exp = now() + 1;
+        revocations.revoke("short-lived", exp);
+        revocations.revoke("long-lived", exp + 3600);
+
+        revocations.prune();
+        assertThat(revocations.isRevoked("short-lived", exp)).isTrue();
+        assertThat(revocations.size()).isEqualTo(2);
+
+        // Once the bucket's whole interval has passed, only the expired token is dropped
+        while (now() <= exp) {
+            Thread.sleep(50);
+        }
+        revocations.prune();
+        assertThat(revocations.isRevoked("short-lived", exp)).isFalse();
+        assertThat(revocations.isRevoked("long-lived", exp + 3600)).isTrue();
+        assertThat(revocations.size()).isEqualTo(1);
+    }
+
+    private static TokenRevocationList revocationList(long bucketSeconds, int expectedPerBucket,
+                                                      double falsePositiveRate) {
+        TokenRevocationList revocations = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocations, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(revocations, "bucketSeconds", bucketSeconds);
+        ReflectionTestUtils.setField(revocations, "expectedPerBucket", expectedPerBucket);
+        ReflectionTestUtils.setField(revocations, "falsePositiveRate", falsePositiveRate);
+        revocations.init();
+        return revocations;
+    }
+}
@@ -5,7 +5,7 @@ echo "==========================================="
 
 # Start the application in background
 echo "🚀 Starting OAuth2 Authorization Server..."
-nohup java -jar target/auth-server-demo-1.0.0-SNAPSHOT.jar > app.log 2>&1 &
+nohup java -jar target/*-exec.jar > app.log 2>&1 &
 APP_PID=$!
 
 echo "   Application PID: $APP_PID"
@@ -82,7 +82,7 @@ if echo "$RESPONSE" | grep -q "clientId"; then
     
     if echo "$LIST_RESPONSE" | grep -q "clients"; then
         echo "✅ Client listing successful!"
-        CLIENT_COUNT=$(echo "$LIST_RESPONSE" | grep -o '"totalCount":[0-9]*' | cut -d':' -f2)
+        CLIENT_COUNT=$(echo "$LIST_RESPONSE" | grep -o '"approximateTotal":[0-9]*' | cut -d':' -f2)
         echo "   Total clients: $CLIENT_COUNT"
     else
         echo "❌ Client listing failed"